@@ -0,0 +1,115 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.task11.ApiHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full {@code handleRequest} per operation for each route: routing, authentication, body binding,
+ * the DynamoDB/Cognito calls (answered by the stubs without latency), item mapping and serialization.
+ * Run with {@code -prof gc} to get the allocation rate per route next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiHandlerBenchmark {
+
+    public enum Route {
+        GET_TABLES,
+        GET_TABLE_BY_ID,
+        GET_TABLE_NOT_MODIFIED,
+        POST_TABLE,
+        GET_RESERVATIONS,
+        GET_RESERVATIONS_BY_PHONE,
+        POST_RESERVATION,
+        POST_RESERVATION_BATCH,
+        POST_SIGNUP,
+        POST_SIGNIN,
+        INVALID_EMAIL,
+        MISSING_TOKEN,
+        UNKNOWN_PATH
+    }
+
+    @Param
+    public Route route;
+
+    @Param({"100"})
+    public int tables;
+
+    private ApiHandler handler;
+    private APIGatewayProxyRequestEvent event;
+    private final Context context = new FakeContext();
+
+    @Setup
+    public void setUp() throws Exception {
+        BookingApi api = new BookingApi(tables, 1000, Duration.ZERO);
+        handler = api.getHandler();
+        event = event(api);
+        // the first GET /tables/{id} fills the table cache; the ETag is needed for the conditional request
+        APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
+        if (route == Route.GET_TABLE_NOT_MODIFIED) {
+            event.setHeaders(Map.of("Authorization", event.getHeaders().get("Authorization"),
+                    "If-None-Match", response.getHeaders().get("ETag")));
+        }
+    }
+
+    private APIGatewayProxyRequestEvent event(BookingApi api) {
+        switch (route) {
+            case GET_TABLES:
+                return api.request("GET", "/tables", null);
+            case GET_TABLE_BY_ID:
+            case GET_TABLE_NOT_MODIFIED:
+                return api.request("GET", "/tables/2", null);
+            case POST_TABLE:
+                return api.request("POST", "/tables", "{\"id\": 1000, \"number\": 1000, \"places\": 4, \"isVip\": true, \"minOrder\": 2000}");
+            case GET_RESERVATIONS:
+                return api.request("GET", "/reservations", null);
+            case GET_RESERVATIONS_BY_PHONE:
+                return api.request("GET", "/reservations", null)
+                        .withQueryStringParameters(Map.of("phoneNumber", "+15550000007", "from", "2025-01-01", "to", "2025-12-31"));
+            case POST_RESERVATION:
+                return api.request("POST", "/reservations", BookingApi.reservationJson(3, "2025-06-01", "18:00", "20:00"));
+            case POST_RESERVATION_BATCH:
+                return api.request("POST", "/reservations/batch", "{\"reservations\": ["
+                        + BookingApi.reservationJson(3, "2025-06-01", "18:00", "20:00") + ", "
+                        + BookingApi.reservationJson(4, "2025-06-01", "18:00", "20:00") + ", "
+                        + BookingApi.reservationJson(3, "2025-06-01", "20:00", "22:00") + "]}");
+            case POST_SIGNUP:
+                return api.anonymousRequest("POST", "/signup", "{\"email\": \"guest@example.com\", \"password\": \"Benchmark-pass-1\"}");
+            case POST_SIGNIN:
+                return api.anonymousRequest("POST", "/signin", "{\"email\": \"guest@example.com\", \"password\": \"Benchmark-pass-1\"}");
+            case INVALID_EMAIL:
+                return api.anonymousRequest("POST", "/signin", "{\"email\": \"not-an-email\", \"password\": \"Benchmark-pass-1\"}");
+            case MISSING_TOKEN:
+                return api.anonymousRequest("GET", "/tables", null);
+            case UNKNOWN_PATH:
+                return api.request("GET", "/menu", null);
+            default:
+                throw new IllegalArgumentException("Unknown route: " + route);
+        }
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent handleRequest() {
+        return handler.handleRequest(event, context);
+    }
+}
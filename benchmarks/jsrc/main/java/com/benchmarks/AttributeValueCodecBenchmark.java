@@ -0,0 +1,173 @@
+package com.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.AttributeValueCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link AttributeValueCodec} on a wide document (1000 fields) and a deep one (30 levels of nesting, close to
+ * DynamoDB's limit of 32). {@code jsonNode} is the previous task10 conversion: a {@code JsonNode} tree first,
+ * then a recursive walk with stream collectors for arrays. The {@code typed} benchmarks read and write the
+ * same document as typed DynamoDB JSON, the shape of stream images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeValueCodecBenchmark {
+
+    @Param({"wide", "deep"})
+    public String shape;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] typedJson;
+    private Map<String, AttributeValue> item;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> document = "wide".equals(shape) ? wide(1000) : deep(30);
+        json = objectMapper.writeValueAsBytes(document);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            parser.nextToken();
+            item = AttributeValueCodec.readItem(parser);
+        }
+        ByteArrayOutputStream typed = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(typed)) {
+            AttributeValueCodec.writeTypedItem(item, generator);
+        }
+        typedJson = typed.toByteArray();
+        System.out.printf("%n%s: %d bytes plain, %d bytes typed%n", shape, json.length, typedJson.length);
+    }
+
+    private static Map<String, Object> wide(int fields) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            switch (i % 5) {
+                case 0:
+                    document.put("temperature_" + i, new BigDecimal("12.345678901234567890" + i));
+                    break;
+                case 1:
+                    document.put("label_" + i, "hourly temperature at 2m, reading " + i);
+                    break;
+                case 2:
+                    document.put("enabled_" + i, i % 2 == 0);
+                    break;
+                case 3:
+                    document.put("series_" + i, List.of(i, i + 0.5, i + 1));
+                    break;
+                default:
+                    document.put("count_" + i, (long) i * 1_000_003);
+            }
+        }
+        return document;
+    }
+
+    private static Map<String, Object> deep(int levels) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("level", levels);
+        document.put("name", "leaf");
+        document.put("values", List.of(1.25, 2.5, 3.75));
+        for (int level = levels - 1; level >= 0; level--) {
+            Map<String, Object> parent = new LinkedHashMap<>();
+            parent.put("level", level);
+            parent.put("name", "level " + level);
+            parent.put("tags", List.of("a", "b", Map.of("k", level)));
+            parent.put("child", document);
+            document = parent;
+        }
+        return document;
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> jsonNode() throws IOException {
+        return convertMapToAttributeValue(objectMapper.readTree(json));
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> readItem() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            parser.nextToken();
+            return AttributeValueCodec.readItem(parser);
+        }
+    }
+
+    @Benchmark
+    public void writeItem() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            AttributeValueCodec.writeItem(item, generator);
+        }
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> readTypedItem() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(typedJson)) {
+            parser.nextToken();
+            return AttributeValueCodec.readTypedItem(parser);
+        }
+    }
+
+    @Benchmark
+    public void writeTypedItem() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            AttributeValueCodec.writeTypedItem(item, generator);
+        }
+    }
+
+    private static Map<String, AttributeValue> convertMapToAttributeValue(JsonNode jsonNode) {
+        Map<String, AttributeValue> attributeMap = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            attributeMap.put(entry.getKey(), convertJsonNodeToAttributeValue(entry.getValue()));
+        }
+        return attributeMap;
+    }
+
+    private static AttributeValue convertJsonNodeToAttributeValue(JsonNode node) {
+        if (node.isTextual()) {
+            return AttributeValue.builder().s(node.asText()).build();
+        } else if (node.isNumber()) {
+            return AttributeValue.builder().n(node.asText()).build();
+        } else if (node.isBoolean()) {
+            return AttributeValue.builder().bool(node.asBoolean()).build();
+        } else if (node.isArray()) {
+            List<AttributeValue> list = StreamSupport.stream(node.spliterator(), false)
+                    .map(AttributeValueCodecBenchmark::convertJsonNodeToAttributeValue)
+                    .collect(Collectors.toList());
+            return AttributeValue.builder().l(list).build();
+        } else if (node.isObject()) {
+            return AttributeValue.builder().m(convertMapToAttributeValue(node)).build();
+        }
+        return AttributeValue.builder().nul(true).build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.benchmarks.dynamodb.InMemoryDynamoDbClient;
+import com.task06.AuditProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit records per second through {@code com.task06.AuditProducer} for a 50-record stream batch, writing
+ * to an {@link InMemoryDynamoDbClient} with a fixed round trip. {@code perItem} sends one record per call,
+ * one call at a time, like the former putItem loop; {@code batched} sends 25-record BatchWriteItem calls one
+ * at a time and {@code concurrent} sends them in parallel. With a {@code throttleRate} the throttled records
+ * come back as UnprocessedItems and are retried after a backoff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditBenchmark {
+
+    private static final int RECORDS = 50;
+
+    @Param({"perItem", "batched", "concurrent"})
+    public String writes;
+
+    @Param({"2"})
+    public int latencyMillis;
+
+    @Param({"0", "0.05"})
+    public double throttleRate;
+
+    private AuditProducer producer;
+    private Map<String, Object> event;
+    private final FakeContext context = new FakeContext();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient(Duration.ofMillis(latencyMillis), throttleRate, 42);
+        dynamoDbClient.createTable("Audit", "id");
+        switch (writes) {
+            case "perItem":
+                producer = new AuditProducer(dynamoDbClient, "Audit", 1, 1);
+                break;
+            case "batched":
+                producer = new AuditProducer(dynamoDbClient, "Audit", AuditProducer.MAX_BATCH_ITEMS, 1);
+                break;
+            default:
+                producer = new AuditProducer(dynamoDbClient, "Audit");
+        }
+
+        List<Map<String, Object>> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            String key = "CACHE_TTL_SEC_" + i;
+            Map<String, Object> dynamodb = new HashMap<>();
+            dynamodb.put("Keys", Map.of("key", Map.of("S", key)));
+            dynamodb.put("NewImage", Map.of("key", Map.of("S", key), "value", Map.of("N", String.valueOf(i + 1))));
+            dynamodb.put("OldImage", Map.of("key", Map.of("S", key), "value", Map.of("N", String.valueOf(i))));
+            dynamodb.put("SequenceNumber", String.valueOf(100_000 + i));
+            records.add(Map.of("eventName", "MODIFY", "dynamodb", dynamodb));
+        }
+        event = Map.of("Records", records);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public StreamsEventResponse handleBatch() {
+        StreamsEventResponse response = producer.handleRequest(event, context);
+        if (!response.getBatchItemFailures().isEmpty()) {
+            throw new IllegalStateException("Audit batch failed: " + response);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.task11.ApiHandler;
+import com.task11.RateLimiter;
+import com.task11.TokenVerifier;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The booking API wired to the stub clients, plus a valid bearer token for its authenticated routes.
+ * DynamoDB is the canned {@link StubDynamoDbClient} unless a store is passed in, e.g. one loaded by
+ * {@link SampleData#load}.
+ */
+public class BookingApi {
+
+    public static final String REGION = "eu-central-1";
+    public static final String USER_POOL_ID = "eu-central-1_benchmark";
+    public static final String CLIENT_ID = "benchmark-client";
+
+    private final ApiHandler handler;
+    private final DynamoDbClient dynamoDbClient;
+    private final StubCognitoClient cognitoClient;
+    private final String accessToken;
+
+    public BookingApi(int tableCount, int reservationCount, Duration latency) throws GeneralSecurityException {
+        this(new StubDynamoDbClient(tableCount, reservationCount, latency), latency);
+    }
+
+    public BookingApi(DynamoDbClient dynamoDbClient, Duration cognitoLatency) throws GeneralSecurityException {
+        this(dynamoDbClient, cognitoLatency, RateLimiter.unlimited());
+    }
+
+    public BookingApi(DynamoDbClient dynamoDbClient, Duration cognitoLatency, RateLimiter rateLimiter) throws GeneralSecurityException {
+        SigningKey signingKey = new SigningKey();
+        this.accessToken = signingKey.accessToken(TokenVerifier.issuer(REGION, USER_POOL_ID), CLIENT_ID,
+                System.currentTimeMillis() / 1000 + Duration.ofDays(1).toSeconds());
+        this.dynamoDbClient = dynamoDbClient;
+        this.cognitoClient = new StubCognitoClient(accessToken, cognitoLatency);
+        this.handler = new ApiHandler(dynamoDbClient, cognitoClient, signingKey.jwks(), REGION, USER_POOL_ID, CLIENT_ID,
+                StubDynamoDbClient.TABLES, StubDynamoDbClient.RESERVATIONS, rateLimiter);
+    }
+
+    public ApiHandler getHandler() {
+        return handler;
+    }
+
+    public DynamoDbClient getDynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    public StubCognitoClient getCognitoClient() {
+        return cognitoClient;
+    }
+
+    public APIGatewayProxyRequestEvent request(String method, String path, String body) {
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod(method)
+                .withPath(path)
+                .withHeaders(Map.of("Authorization", "Bearer " + accessToken, "Content-Type", "application/json"))
+                .withBody(body);
+    }
+
+    public APIGatewayProxyRequestEvent anonymousRequest(String method, String path, String body) {
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod(method)
+                .withPath(path)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+
+    public static String reservationJson(int tableNumber, String date, String slotTimeStart, String slotTimeEnd) {
+        return "{\"tableNumber\": " + tableNumber + ", \"clientName\": \"Benchmark Guest\", \"phoneNumber\": \"+15550000001\", "
+                + "\"date\": \"" + date + "\", \"slotTimeStart\": \"" + slotTimeStart + "\", \"slotTimeEnd\": \"" + slotTimeEnd + "\"}";
+    }
+}
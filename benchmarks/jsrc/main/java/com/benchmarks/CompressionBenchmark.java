@@ -0,0 +1,68 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.task11.ApiHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /tables?limit=N} with and without response compression. The time includes the handler's
+ * compression work; the setup prints the size of the body API Gateway sends on (decoded from base64 when
+ * compressed), which is what the client's download time depends on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int tables;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    private ApiHandler handler;
+    private APIGatewayProxyRequestEvent event;
+    private final Context context = new FakeContext();
+
+    @Setup
+    public void setUp() throws Exception {
+        BookingApi api = new BookingApi(tables, 0, Duration.ZERO);
+        handler = api.getHandler();
+        event = api.request("GET", "/tables", null)
+                .withQueryStringParameters(Map.of("limit", String.valueOf(tables)));
+        Map<String, String> headers = new HashMap<>(event.getHeaders());
+        headers.put("Accept-Encoding", encoding);
+        event.setHeaders(headers);
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
+        String body = response.getBody();
+        int bytes = Boolean.TRUE.equals(response.getIsBase64Encoded()) ? Base64.getDecoder().decode(body).length : body.length();
+        System.out.printf("%nGET /tables?limit=%d, Accept-Encoding %s: %d bytes%n", tables, encoding, bytes);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent getTables() {
+        return handler.handleRequest(event, context);
+    }
+}
@@ -0,0 +1,77 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/**
+ * Lambda context for benchmark invocations; its logger drops everything.
+ */
+public class FakeContext implements Context {
+
+    private static final LambdaLogger DISCARDING_LOGGER = new LambdaLogger() {
+        @Override
+        public void log(String message) {
+        }
+
+        @Override
+        public void log(byte[] message) {
+        }
+    };
+
+    @Override
+    public String getAwsRequestId() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/benchmark";
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "api_handler";
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return "arn:aws:lambda:eu-central-1:000000000000:function:api_handler";
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return 30_000;
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return 512;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return DISCARDING_LOGGER;
+    }
+}
@@ -0,0 +1,99 @@
+package com.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.task11.ApiHandler;
+import com.task11.ModelCodec;
+import com.task11.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pieces {@link ApiHandlerBenchmark} goes through, one at a time: mapping scanned items to models,
+ * serializing them with a plain {@code writeValueAsString} and with the codec's prebuilt writers, and
+ * the sign-up/sign-in regex validators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    @Param({"10", "100"})
+    public int items;
+
+    private List<Map<String, AttributeValue>> scannedItems;
+    private List<Table> tables;
+    private ObjectMapper objectMapper;
+    private ModelCodec modelCodec;
+
+    @Setup
+    public void setUp() {
+        scannedItems = new StubDynamoDbClient(items, 0, Duration.ZERO)
+                .scan(ScanRequest.builder().tableName(StubDynamoDbClient.TABLES).build())
+                .items();
+        tables = mapTables();
+        objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+        modelCodec = new ModelCodec(objectMapper);
+    }
+
+    @Benchmark
+    public List<Table> mapTables() {
+        List<Table> mapped = new ArrayList<>(scannedItems.size());
+        for (Map<String, AttributeValue> item : scannedItems) {
+            mapped.add(Table.fromItem(item));
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public List<Map<String, AttributeValue>> tablesToItems() {
+        List<Map<String, AttributeValue>> mapped = new ArrayList<>(tables.size());
+        for (Table table : tables) {
+            mapped.add(table.toItem());
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public String writeValueAsString() throws Exception {
+        return objectMapper.writeValueAsString(tables);
+    }
+
+    @Benchmark
+    public String codecWrite() throws Exception {
+        return modelCodec.write(tables);
+    }
+
+    @Benchmark
+    public void emailPattern(Blackhole blackhole) {
+        blackhole.consume(ApiHandler.isValidEmail("guest.name+booking@example.com"));
+        blackhole.consume(ApiHandler.isValidEmail("not-an-email"));
+    }
+
+    @Benchmark
+    public void passwordPattern(Blackhole blackhole) {
+        blackhole.consume(ApiHandler.isValidPassword("Benchmark-pass-1"));
+        blackhole.consume(ApiHandler.isValidPassword("short"));
+    }
+}
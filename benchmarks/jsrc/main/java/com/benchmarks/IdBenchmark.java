@@ -0,0 +1,58 @@
+package com.benchmarks;
+
+import com.shared.Ids;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Ids} against {@link UUID#randomUUID()}, single-threaded and with 8 threads sharing the generator
+ * the way concurrent requests do. The {@code String} variants are what the handlers store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdBenchmark {
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID uuidV7() {
+        return Ids.uuidV7();
+    }
+
+    @Benchmark
+    public String randomUuidString() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String uuidV7String() {
+        return Ids.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomUuidStringContended() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String uuidV7StringContended() {
+        return Ids.next();
+    }
+}
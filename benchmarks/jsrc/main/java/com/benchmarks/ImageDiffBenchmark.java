@@ -0,0 +1,94 @@
+package com.benchmarks;
+
+import com.task06.ImageDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ImageDiff} on old and new images of a wide Configuration item, built separately the way two
+ * decoded stream images are. A quarter of the attributes are nested maps with a list inside, the rest
+ * strings, numbers, string sets and binary values; {@code changed} of the attributes differ.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageDiffBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int attributes;
+
+    @Param({"0", "1", "10"})
+    public int changed;
+
+    private Map<String, AttributeValue> oldImage;
+    private Map<String, AttributeValue> newImage;
+
+    @Setup
+    public void setUp() {
+        oldImage = image(attributes, 0);
+        newImage = image(attributes, Math.min(changed, attributes));
+        System.out.printf("%n%d attributes, %d changed paths%n", attributes, ImageDiff.diff(oldImage, newImage).size());
+    }
+
+    private static Map<String, AttributeValue> image(int attributes, int changed) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("key", AttributeValue.fromS("CACHE_SETTINGS"));
+        for (int i = 0; i < attributes; i++) {
+            // spread the changed attributes over the item
+            int version = changed > 0 && i % (attributes / changed) == 0 && i / (attributes / changed) < changed ? 1 : 0;
+            image.put("attribute" + i, value(i, version));
+        }
+        return image;
+    }
+
+    private static AttributeValue value(int i, int version) {
+        switch (i % 8) {
+            case 0:
+            case 1:
+                Map<String, AttributeValue> nested = new HashMap<>();
+                nested.put("enabled", AttributeValue.fromBool(true));
+                nested.put("limit", AttributeValue.fromN(String.valueOf(100 + i)));
+                nested.put("owner", AttributeValue.fromS("team-" + i));
+                List<AttributeValue> hosts = new ArrayList<>();
+                for (int host = 0; host < 4; host++) {
+                    hosts.add(AttributeValue.fromS("host-" + host + (host == 2 ? "-v" + version : "")));
+                }
+                nested.put("hosts", AttributeValue.fromL(hosts));
+                return AttributeValue.fromM(nested);
+            case 2:
+                return AttributeValue.fromSs(List.of("a" + i, "b" + i, "c" + i + "-v" + version));
+            case 3:
+                return AttributeValue.fromB(SdkBytes.fromUtf8String("payload-" + i + "-v" + version));
+            case 4:
+            case 5:
+                return AttributeValue.fromN(String.valueOf(i * 10 + version));
+            default:
+                return AttributeValue.fromS("value-" + i + "-v" + version);
+        }
+    }
+
+    @Benchmark
+    public List<ImageDiff.Change> diff() {
+        return ImageDiff.diff(oldImage, newImage);
+    }
+}
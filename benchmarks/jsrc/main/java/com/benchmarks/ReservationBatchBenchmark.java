@@ -0,0 +1,76 @@
+package com.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.task11.ApiHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Books {@code size} reservations with one {@code POST /reservations/batch} versus {@code size} separate
+ * {@code POST /reservations}, with every DynamoDB call taking {@code latencyMillis}. The batch makes two
+ * calls whatever its size; the sequential client makes two per reservation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBatchBenchmark {
+
+    @Param({"1", "5", "25"})
+    public int size;
+
+    @Param({"0", "5"})
+    public int latencyMillis;
+
+    private ApiHandler handler;
+    private APIGatewayProxyRequestEvent batch;
+    private List<APIGatewayProxyRequestEvent> singles;
+    private final Context context = new FakeContext();
+
+    @Setup
+    public void setUp() throws Exception {
+        BookingApi api = new BookingApi(size, 0, Duration.ofMillis(latencyMillis));
+        handler = api.getHandler();
+
+        StringJoiner reservations = new StringJoiner(", ", "{\"reservations\": [", "]}");
+        singles = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            String reservation = BookingApi.reservationJson(i, "2025-06-01", "18:00", "20:00");
+            reservations.add(reservation);
+            singles.add(api.request("POST", "/reservations", reservation));
+        }
+        batch = api.request("POST", "/reservations/batch", reservations.toString());
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent batch() {
+        return handler.handleRequest(batch, context);
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        for (APIGatewayProxyRequestEvent single : singles) {
+            blackhole.consume(handler.handleRequest(single, context));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.benchmarks;
+
+import com.benchmarks.dynamodb.InMemoryDynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Items of the booking tables, shared by {@link StubDynamoDbClient} and the in-memory store so both
+ * serve the same data.
+ */
+public final class SampleData {
+
+    public static final String PHONE_DATE_INDEX = "phoneNumber-date-index";
+    public static final String TABLE_DATE_INDEX = "tableNumber-date-index";
+
+    private SampleData() {
+    }
+
+    public static List<Map<String, AttributeValue>> tables(int count) {
+        List<Map<String, AttributeValue>> tables = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, AttributeValue> table = new HashMap<>();
+            table.put("id", AttributeValue.builder().s(String.valueOf(i)).build());
+            table.put("number", AttributeValue.builder().n(String.valueOf(i)).build());
+            table.put("places", AttributeValue.builder().n(String.valueOf(2 + i % 6)).build());
+            table.put("isVip", AttributeValue.builder().bool(i % 5 == 0).build());
+            if (i % 2 == 0) {
+                table.put("minOrder", AttributeValue.builder().n(String.valueOf(i * 100)).build());
+            }
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    /**
+     * Reservations spread over {@code tableCount} tables and 100 phone numbers ({@code +15550000000} to
+     * {@code +15550000099}).
+     */
+    public static List<Map<String, AttributeValue>> reservations(int count, int tableCount) {
+        List<Map<String, AttributeValue>> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> reservation = new HashMap<>();
+            reservation.put("id", AttributeValue.builder().s("reservation-" + i).build());
+            reservation.put("tableNumber", AttributeValue.builder().n(String.valueOf(1 + i % Math.max(tableCount, 1))).build());
+            reservation.put("clientName", AttributeValue.builder().s("Guest " + i).build());
+            reservation.put("phoneNumber", AttributeValue.builder().s("+1555" + String.format("%07d", i % 100)).build());
+            reservation.put("date", AttributeValue.builder().s(String.format("2025-%02d-%02d", 1 + i % 12, 1 + i % 28)).build());
+            reservation.put("slotTimeStart", AttributeValue.builder().s(String.format("%02d:00", 10 + i % 10)).build());
+            reservation.put("slotTimeEnd", AttributeValue.builder().s(String.format("%02d:00", 11 + i % 10)).build());
+            reservations.add(reservation);
+        }
+        return reservations;
+    }
+
+    /**
+     * Creates the booking tables as deployment_resources.json declares them (both keyed by {@code id}, the
+     * reservations with the phone number and table number indexes) and loads the sample items.
+     */
+    public static InMemoryDynamoDbClient load(InMemoryDynamoDbClient dynamoDbClient, int tableCount, int reservationCount) {
+        dynamoDbClient.createTable(StubDynamoDbClient.TABLES, "id");
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(StubDynamoDbClient.RESERVATIONS)
+                .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+                .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                        .indexName(PHONE_DATE_INDEX)
+                        .keySchema(KeySchemaElement.builder().attributeName("phoneNumber").keyType(KeyType.HASH).build(),
+                                KeySchemaElement.builder().attributeName("date").keyType(KeyType.RANGE).build())
+                        .build(), GlobalSecondaryIndex.builder()
+                        .indexName(TABLE_DATE_INDEX)
+                        .keySchema(KeySchemaElement.builder().attributeName("tableNumber").keyType(KeyType.HASH).build(),
+                                KeySchemaElement.builder().attributeName("date").keyType(KeyType.RANGE).build())
+                        .build())
+                .build());
+        dynamoDbClient.load(StubDynamoDbClient.TABLES, tables(tableCount));
+        dynamoDbClient.load(StubDynamoDbClient.RESERVATIONS, reservations(reservationCount, tableCount));
+        return dynamoDbClient;
+    }
+}
@@ -0,0 +1,92 @@
+package com.benchmarks;
+
+import com.task11.CognitoSignIn;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminConfirmSignUpRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminInitiateAuthRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthFlowType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthenticationResultType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserStatusType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign-in of a confirmed user against a Cognito stand-in whose calls take {@code latencyMillis}:
+ * {@link CognitoSignIn} (one call) versus the previous look-up-then-authenticate flow (two calls).
+ * The {@code cognitoCalls} counter reports the calls made per sign-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignInBenchmark {
+
+    private static final String EMAIL = "guest@example.com";
+    private static final String PASSWORD = "Benchmark-pass-1";
+
+    @Param({"0", "20"})
+    public int latencyMillis;
+
+    private StubCognitoClient cognitoClient;
+    private CognitoSignIn cognitoSignIn;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Calls {
+        public long cognitoCalls;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cognitoClient = new StubCognitoClient("access-token", Duration.ofMillis(latencyMillis));
+        cognitoSignIn = new CognitoSignIn(cognitoClient, BookingApi.USER_POOL_ID, BookingApi.CLIENT_ID);
+    }
+
+    @Benchmark
+    public AuthenticationResultType cognitoSignIn(Calls calls) {
+        long before = cognitoClient.getCalls();
+        AuthenticationResultType result = cognitoSignIn.signIn(EMAIL, PASSWORD);
+        calls.cognitoCalls += cognitoClient.getCalls() - before;
+        return result;
+    }
+
+    @Benchmark
+    public AuthenticationResultType lookUpThenAuthenticate(Calls calls) {
+        long before = cognitoClient.getCalls();
+        UserStatusType status = cognitoClient.adminGetUser(AdminGetUserRequest.builder()
+                .userPoolId(BookingApi.USER_POOL_ID)
+                .username(EMAIL)
+                .build()).userStatus();
+        if (status != UserStatusType.CONFIRMED) {
+            cognitoClient.adminConfirmSignUp(AdminConfirmSignUpRequest.builder()
+                    .userPoolId(BookingApi.USER_POOL_ID)
+                    .username(EMAIL)
+                    .build());
+        }
+        AuthenticationResultType result = cognitoClient.adminInitiateAuth(AdminInitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.ADMIN_NO_SRP_AUTH)
+                .userPoolId(BookingApi.USER_POOL_ID)
+                .clientId(BookingApi.CLIENT_ID)
+                .authParameters(Map.of("USERNAME", EMAIL, "PASSWORD", PASSWORD))
+                .build()).authenticationResult();
+        calls.cognitoCalls += cognitoClient.getCalls() - before;
+        return result;
+    }
+}
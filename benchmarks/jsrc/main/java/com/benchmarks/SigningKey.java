@@ -0,0 +1,60 @@
+package com.benchmarks;
+
+import com.task11.JwksCache;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Locally generated RSA key standing in for a Cognito user pool: publishes a one-key JWKS and signs
+ * access tokens that the handler's {@code TokenVerifier} accepts.
+ */
+public class SigningKey {
+
+    private static final String KID = "benchmark";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final KeyPair keyPair;
+
+    public SigningKey() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+    }
+
+    public JwksCache.JwksSource jwks() {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        String jwks = "{\"keys\": [{\"kty\": \"RSA\", \"alg\": \"RS256\", \"use\": \"sig\", \"kid\": \"" + KID + "\", "
+                + "\"n\": \"" + encode(publicKey.getModulus()) + "\", \"e\": \"" + encode(publicKey.getPublicExponent()) + "\"}]}";
+        return () -> jwks;
+    }
+
+    public String accessToken(String issuer, String clientId, long expiresAtSeconds) throws GeneralSecurityException {
+        String header = "{\"alg\": \"RS256\", \"kid\": \"" + KID + "\"}";
+        String claims = "{\"iss\": \"" + issuer + "\", \"token_use\": \"access\", \"client_id\": \"" + clientId + "\", "
+                + "\"sub\": \"benchmark\", \"exp\": " + expiresAtSeconds + "}";
+        String signingInput = ENCODER.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + ENCODER.encodeToString(signature.sign());
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // BigInteger adds a sign byte when the top bit is set; JWK wants the unsigned magnitude
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return ENCODER.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package com.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task06.StreamEventDecoder;
+import com.task06.StreamRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a 50-record Configuration stream event for {@code com.task06.AuditProducer}: the whole event
+ * deserialised into maps (what the Lambda runtime does for a {@code Map} handler) and then walked with casts,
+ * against {@link StreamEventDecoder} reading the typed records straight from the bytes. The records carry the
+ * metadata a real stream event has, which only the map path builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamDecodingBenchmark {
+
+    private static final int RECORDS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] event;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Map<String, Object>> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            String key = "CACHE_TTL_SEC_" + i;
+            Map<String, Object> dynamodb = new HashMap<>();
+            dynamodb.put("ApproximateCreationDateTime", 1_700_000_000 + i);
+            dynamodb.put("Keys", Map.of("key", Map.of("S", key)));
+            dynamodb.put("NewImage", image(key, i + 1));
+            dynamodb.put("OldImage", image(key, i));
+            dynamodb.put("SequenceNumber", String.valueOf(4_421_584_500_000_000_000L + i));
+            dynamodb.put("SizeBytes", 120);
+            dynamodb.put("StreamViewType", "NEW_AND_OLD_IMAGES");
+
+            Map<String, Object> record = new HashMap<>();
+            record.put("eventID", "c81e728d9d4c2f636f067f89cc14862c" + i);
+            record.put("eventName", "MODIFY");
+            record.put("eventVersion", "1.1");
+            record.put("eventSource", "aws:dynamodb");
+            record.put("awsRegion", "eu-central-1");
+            record.put("dynamodb", dynamodb);
+            record.put("eventSourceARN", "arn:aws:dynamodb:eu-central-1:123456789012:table/Configuration/stream/2024-01-01T00:00:00.000");
+            records.add(record);
+        }
+        event = objectMapper.writeValueAsBytes(Map.of("Records", records));
+        System.out.printf("%n%d records, %d bytes%n", RECORDS, event.length);
+    }
+
+    private static Map<String, Object> image(String key, int value) {
+        return Map.of(
+                "key", Map.of("S", key),
+                "value", Map.of("N", String.valueOf(value)),
+                "description", Map.of("S", "Cache time-to-live in seconds for " + key),
+                "tags", Map.of("L", List.of(Map.of("S", "cache"), Map.of("S", "ttl"))),
+                "updatedBy", Map.of("S", "deploy-pipeline"));
+    }
+
+    @Benchmark
+    public List<StreamRecord> maps() throws IOException {
+        Map<?, ?> input = objectMapper.readValue(event, Map.class);
+        List<?> records = (List<?>) input.get("Records");
+        List<StreamRecord> decoded = new ArrayList<>(records.size());
+        for (Object record : records) {
+            decoded.add(StreamRecord.fromMap((Map<?, ?>) record));
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public List<StreamRecord> streaming() throws IOException {
+        return StreamEventDecoder.decode(new ByteArrayInputStream(event));
+    }
+}
@@ -0,0 +1,95 @@
+package com.benchmarks;
+
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminConfirmSignUpRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminConfirmSignUpResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminInitiateAuthRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminInitiateAuthResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthenticationResultType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.SignUpRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.SignUpResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserStatusType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cognito client that accepts every user and password and hands out one fixed access token. Each call
+ * waits {@code latency} (a stand-in for the Cognito round trip) and is counted, so benchmarks can report
+ * calls per sign-in next to the time.
+ */
+public class StubCognitoClient implements CognitoIdentityProviderClient {
+
+    private final String accessToken;
+    private final Duration latency;
+    private final AtomicLong calls = new AtomicLong();
+
+    public StubCognitoClient(String accessToken, Duration latency) {
+        this.accessToken = accessToken;
+        this.latency = latency;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public AdminInitiateAuthResponse adminInitiateAuth(AdminInitiateAuthRequest request) {
+        roundTrip();
+        return AdminInitiateAuthResponse.builder()
+                .authenticationResult(AuthenticationResultType.builder()
+                        .accessToken(accessToken)
+                        .expiresIn(3600)
+                        .tokenType("Bearer")
+                        .build())
+                .build();
+    }
+
+    @Override
+    public AdminGetUserResponse adminGetUser(AdminGetUserRequest request) {
+        roundTrip();
+        return AdminGetUserResponse.builder()
+                .username(request.username())
+                .userStatus(UserStatusType.CONFIRMED)
+                .build();
+    }
+
+    @Override
+    public AdminConfirmSignUpResponse adminConfirmSignUp(AdminConfirmSignUpRequest request) {
+        roundTrip();
+        return AdminConfirmSignUpResponse.builder().build();
+    }
+
+    @Override
+    public SignUpResponse signUp(SignUpRequest request) {
+        roundTrip();
+        return SignUpResponse.builder().userConfirmed(false).build();
+    }
+
+    @Override
+    public DescribeUserPoolResponse describeUserPool(DescribeUserPoolRequest request) {
+        roundTrip();
+        return DescribeUserPoolResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void roundTrip() {
+        calls.incrementAndGet();
+        if (!latency.isZero()) {
+            LockSupport.parkNanos(latency.toNanos());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.benchmarks;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DynamoDB client answering from canned, read-only items: the calls the booking API makes return
+ * immediately (or after a fixed {@code latency} that stands in for the network round trip), and writes
+ * are accepted without being stored so every iteration sees the same data.
+ */
+public class StubDynamoDbClient implements DynamoDbClient {
+
+    public static final String TABLES = "Tables";
+    public static final String RESERVATIONS = "Reservations";
+
+    private final Map<String, List<Map<String, AttributeValue>>> items = new HashMap<>();
+    private final Map<String, Map<String, Map<String, AttributeValue>>> itemsById = new HashMap<>();
+    private final Duration latency;
+
+    public StubDynamoDbClient(int tableCount, int reservationCount, Duration latency) {
+        this.latency = latency;
+        add(TABLES, SampleData.tables(tableCount));
+        add(RESERVATIONS, SampleData.reservations(reservationCount, tableCount));
+    }
+
+    private void add(String tableName, List<Map<String, AttributeValue>> tableItems) {
+        items.put(tableName, tableItems);
+        Map<String, Map<String, AttributeValue>> byId = new HashMap<>();
+        for (Map<String, AttributeValue> item : tableItems) {
+            byId.put(item.get("id").s(), item);
+        }
+        itemsById.put(tableName, byId);
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        roundTrip();
+        Map<String, AttributeValue> item = itemsById.getOrDefault(request.tableName(), Map.of())
+                .get(request.key().get("id").s());
+        return item == null ? GetItemResponse.builder().build() : GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        roundTrip();
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
+            Map<String, Map<String, AttributeValue>> byId = itemsById.getOrDefault(entry.getKey(), Map.of());
+            List<Map<String, AttributeValue>> found = new ArrayList<>();
+            for (Map<String, AttributeValue> key : entry.getValue().keys()) {
+                Map<String, AttributeValue> item = byId.get(key.get("id").s());
+                if (item != null) {
+                    found.add(item);
+                }
+            }
+            responses.put(entry.getKey(), found);
+        }
+        return BatchGetItemResponse.builder().responses(responses).build();
+    }
+
+    /**
+     * Pages through the items in insertion order; filter and projection expressions are ignored.
+     */
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        roundTrip();
+        List<Map<String, AttributeValue>> tableItems = items.getOrDefault(request.tableName(), List.of());
+        int from = request.hasExclusiveStartKey() ? indexAfter(tableItems, request.exclusiveStartKey()) : 0;
+        int to = request.limit() == null ? tableItems.size() : Math.min(tableItems.size(), from + request.limit());
+        ScanResponse.Builder response = ScanResponse.builder()
+                .items(tableItems.subList(from, to))
+                .count(to - from);
+        if (to < tableItems.size()) {
+            response.lastEvaluatedKey(Map.of("id", tableItems.get(to - 1).get("id")));
+        }
+        return response.build();
+    }
+
+    /**
+     * Matches on {@code :phoneNumber}, {@code :tableNumber} and {@code :date} equality only, which is all
+     * the phone number and table number index queries need.
+     */
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        roundTrip();
+        List<Map<String, AttributeValue>> matches = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items.getOrDefault(request.tableName(), List.of())) {
+            if (matches(request, item, "phoneNumber") && matches(request, item, "tableNumber")
+                    && matches(request, item, "date")) {
+                matches.add(item);
+            }
+        }
+        int from = request.hasExclusiveStartKey() ? indexAfter(matches, request.exclusiveStartKey()) : 0;
+        int to = request.limit() == null ? matches.size() : Math.min(matches.size(), from + request.limit());
+        QueryResponse.Builder response = QueryResponse.builder()
+                .items(matches.subList(from, to))
+                .count(to - from);
+        if (to < matches.size()) {
+            response.lastEvaluatedKey(Map.of("id", matches.get(to - 1).get("id")));
+        }
+        return response.build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        roundTrip();
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        roundTrip();
+        return BatchWriteItemResponse.builder().build();
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        roundTrip();
+        return TransactWriteItemsResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static boolean matches(QueryRequest request, Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = request.expressionAttributeValues().get(":" + attribute);
+        return value == null || value.equals(item.get(attribute));
+    }
+
+    private static int indexAfter(List<Map<String, AttributeValue>> tableItems, Map<String, AttributeValue> key) {
+        AttributeValue id = key.get("id");
+        for (int i = 0; i < tableItems.size(); i++) {
+            if (tableItems.get(i).get("id").equals(id)) {
+                return i + 1;
+            }
+        }
+        return tableItems.size();
+    }
+
+    private void roundTrip() {
+        if (!latency.isZero()) {
+            LockSupport.parkNanos(latency.toNanos());
+        }
+    }
+}
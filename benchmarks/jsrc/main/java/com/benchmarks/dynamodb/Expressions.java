@@ -0,0 +1,839 @@
+package com.benchmarks.dynamodb;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parser and evaluator for the DynamoDB expression languages: conditions (also used for filters and key
+ * conditions), update expressions and projections. Attribute names and values are resolved from the
+ * request's placeholder maps at parse time. Malformed expressions raise {@link IllegalArgumentException},
+ * which the client reports as a {@code ValidationException}.
+ */
+final class Expressions {
+
+    private Expressions() {
+    }
+
+    interface Condition {
+        boolean test(Map<String, AttributeValue> item);
+    }
+
+    interface Operand {
+        /**
+         * @return the value, or {@code null} when the operand names a missing attribute
+         */
+        AttributeValue evaluate(Map<String, AttributeValue> item);
+    }
+
+    /**
+     * One action of an update expression. Values are read from {@code original} and written to
+     * {@code target}, so every action sees the item as it was before the update.
+     */
+    interface UpdateAction {
+        void apply(Map<String, AttributeValue> original, Map<String, AttributeValue> target);
+    }
+
+    /**
+     * Document path such as {@code a.b[2].c}: map keys are strings, list indexes are integers.
+     */
+    static final class Path implements Operand {
+        private final List<Object> elements;
+
+        Path(List<Object> elements) {
+            this.elements = elements;
+        }
+
+        String topLevelName() {
+            return (String) elements.get(0);
+        }
+
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            AttributeValue current = item.get(topLevelName());
+            for (int i = 1; i < elements.size() && current != null; i++) {
+                Object element = elements.get(i);
+                if (element instanceof Integer) {
+                    int index = (Integer) element;
+                    current = current.hasL() && index < current.l().size() ? current.l().get(index) : null;
+                } else {
+                    current = current.hasM() ? current.m().get(element) : null;
+                }
+            }
+            return current;
+        }
+
+        void set(Map<String, AttributeValue> item, AttributeValue value) {
+            item.put(topLevelName(), with(item.get(topLevelName()), 1, value));
+        }
+
+        void remove(Map<String, AttributeValue> item) {
+            if (elements.size() == 1) {
+                item.remove(topLevelName());
+            } else if (item.containsKey(topLevelName())) {
+                item.put(topLevelName(), with(item.get(topLevelName()), 1, null));
+            }
+        }
+
+        /**
+         * Copy of {@code container} with the path from {@code depth} on set to {@code value}, or removed when
+         * {@code value} is {@code null}.
+         */
+        private AttributeValue with(AttributeValue container, int depth, AttributeValue value) {
+            if (depth == elements.size()) {
+                return value;
+            }
+            Object element = elements.get(depth);
+            if (element instanceof Integer) {
+                if (container == null || !container.hasL()) {
+                    throw new IllegalArgumentException("The document path provided in the update expression is invalid for update");
+                }
+                List<AttributeValue> list = new ArrayList<>(container.l());
+                int index = (Integer) element;
+                if (index < list.size()) {
+                    AttributeValue updated = with(list.get(index), depth + 1, value);
+                    if (updated == null) {
+                        list.remove(index);
+                    } else {
+                        list.set(index, updated);
+                    }
+                } else if (value != null) {
+                    list.add(with(null, depth + 1, value));
+                }
+                return AttributeValue.builder().l(list).build();
+            }
+            if (container == null || !container.hasM()) {
+                throw new IllegalArgumentException("The document path provided in the update expression is invalid for update");
+            }
+            Map<String, AttributeValue> map = new HashMap<>(container.m());
+            AttributeValue updated = with(map.get(element), depth + 1, value);
+            if (updated == null) {
+                map.remove(element);
+            } else {
+                map.put((String) element, updated);
+            }
+            return AttributeValue.builder().m(map).build();
+        }
+
+        @Override
+        public String toString() {
+            return elements.toString();
+        }
+    }
+
+    static Condition condition(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        Parser parser = new Parser(expression, names, values);
+        Condition condition = parser.orCondition();
+        parser.expectEnd();
+        return condition;
+    }
+
+    static List<UpdateAction> update(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        Parser parser = new Parser(expression, names, values);
+        List<UpdateAction> actions = parser.updateClauses();
+        parser.expectEnd();
+        return actions;
+    }
+
+    static List<Path> projection(String expression, Map<String, String> names) {
+        Parser parser = new Parser(expression, names, Map.of());
+        List<Path> paths = new ArrayList<>();
+        do {
+            paths.add(parser.path());
+        } while (parser.accept(","));
+        parser.expectEnd();
+        return paths;
+    }
+
+    /**
+     * Keeps the projected attributes; a nested path keeps its whole top-level attribute.
+     */
+    static Map<String, AttributeValue> project(Map<String, AttributeValue> item, List<Path> paths) {
+        if (paths == null) {
+            return item;
+        }
+        Map<String, AttributeValue> projected = new HashMap<>();
+        for (Path path : paths) {
+            if (path.evaluate(item) != null) {
+                projected.put(path.topLevelName(), item.get(path.topLevelName()));
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Orders two scalar values the way DynamoDB does: numbers numerically, strings by code point and
+     * binaries as unsigned bytes. Values of different types are not comparable.
+     */
+    static int compare(AttributeValue left, AttributeValue right) {
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n()));
+        }
+        if (left.s() != null && right.s() != null) {
+            return left.s().compareTo(right.s());
+        }
+        if (left.b() != null && right.b() != null) {
+            byte[] a = left.b().asByteArrayUnsafe();
+            byte[] b = right.b().asByteArrayUnsafe();
+            for (int i = 0; i < Math.min(a.length, b.length); i++) {
+                int difference = (a[i] & 0xff) - (b[i] & 0xff);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return a.length - b.length;
+        }
+        throw new ClassCastException("Values of different types are not comparable");
+    }
+
+    static boolean same(AttributeValue left, AttributeValue right) {
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n())) == 0;
+        }
+        if (left.hasNs() && right.hasNs()) {
+            return numberSet(left).equals(numberSet(right));
+        }
+        if (left.hasSs() && right.hasSs()) {
+            return new LinkedHashSet<>(left.ss()).equals(new LinkedHashSet<>(right.ss()));
+        }
+        return left.equals(right);
+    }
+
+    private static Set<BigDecimal> numberSet(AttributeValue value) {
+        Set<BigDecimal> numbers = new LinkedHashSet<>();
+        for (String n : value.ns()) {
+            numbers.add(new BigDecimal(n).stripTrailingZeros());
+        }
+        return numbers;
+    }
+
+    private static final class Parser {
+        private final String expression;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+            if (expression == null || expression.isBlank()) {
+                throw new IllegalArgumentException("Invalid expression: The expression can not be empty");
+            }
+            this.expression = expression;
+            this.names = names == null ? Map.of() : names;
+            this.values = values == null ? Map.of() : values;
+            tokenize();
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '<' || c == '>') {
+                    boolean twoChars = i + 1 < expression.length()
+                            && (expression.charAt(i + 1) == '=' || (c == '<' && expression.charAt(i + 1) == '>'));
+                    tokens.add(expression.substring(i, twoChars ? i + 2 : i + 1));
+                    i += twoChars ? 2 : 1;
+                } else if ("()[],.=+-".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if (c == '#' || c == ':' || Character.isLetterOrDigit(c) || c == '_') {
+                    int start = i++;
+                    while (i < expression.length()
+                            && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_')) {
+                        i++;
+                    }
+                    tokens.add(expression.substring(start, i));
+                } else {
+                    throw invalid("Syntax error; token: \"" + c + "\"");
+                }
+            }
+        }
+
+        List<UpdateAction> updateClauses() {
+            List<UpdateAction> actions = new ArrayList<>();
+            Set<String> clauses = new LinkedHashSet<>();
+            while (position < tokens.size()) {
+                String clause = next().toUpperCase(Locale.ROOT);
+                if (!clauses.add(clause)) {
+                    throw invalid("The \"" + clause + "\" section can only be used once in an update expression");
+                }
+                do {
+                    actions.add(updateAction(clause));
+                } while (accept(","));
+            }
+            return actions;
+        }
+
+        private UpdateAction updateAction(String clause) {
+            Path path = path();
+            switch (clause) {
+                case "SET": {
+                    expect("=");
+                    Operand value = setValue();
+                    return (original, target) -> {
+                        AttributeValue evaluated = value.evaluate(original);
+                        if (evaluated == null) {
+                            throw new IllegalArgumentException(
+                                    "The provided expression refers to an attribute that does not exist in the item");
+                        }
+                        path.set(target, evaluated);
+                    };
+                }
+                case "REMOVE":
+                    return (original, target) -> path.remove(target);
+                case "ADD": {
+                    AttributeValue value = valuePlaceholder();
+                    return (original, target) -> path.set(target, add(path.evaluate(original), value));
+                }
+                case "DELETE": {
+                    AttributeValue value = valuePlaceholder();
+                    return (original, target) -> {
+                        AttributeValue remaining = delete(path.evaluate(original), value);
+                        if (remaining == null) {
+                            path.remove(target);
+                        } else {
+                            path.set(target, remaining);
+                        }
+                    };
+                }
+                default:
+                    throw invalid("Syntax error; token: \"" + clause + "\"");
+            }
+        }
+
+        private Operand setValue() {
+            Operand left = setOperand();
+            if (accept("+")) {
+                Operand right = setOperand();
+                return item -> arithmetic(left.evaluate(item), right.evaluate(item), BigDecimal::add);
+            }
+            if (accept("-")) {
+                Operand right = setOperand();
+                return item -> arithmetic(left.evaluate(item), right.evaluate(item), BigDecimal::subtract);
+            }
+            return left;
+        }
+
+        private Operand setOperand() {
+            String token = peek();
+            if ("if_not_exists".equals(token)) {
+                next();
+                expect("(");
+                Path path = path();
+                expect(",");
+                Operand fallback = setValue();
+                expect(")");
+                return item -> {
+                    AttributeValue existing = path.evaluate(item);
+                    return existing != null ? existing : fallback.evaluate(item);
+                };
+            }
+            if ("list_append".equals(token)) {
+                next();
+                expect("(");
+                Operand first = setValue();
+                expect(",");
+                Operand second = setValue();
+                expect(")");
+                return item -> {
+                    AttributeValue a = first.evaluate(item);
+                    AttributeValue b = second.evaluate(item);
+                    if (a == null || b == null || !a.hasL() || !b.hasL()) {
+                        throw new IllegalArgumentException("Incorrect operand type for operator or function; operator or function: list_append");
+                    }
+                    List<AttributeValue> joined = new ArrayList<>(a.l());
+                    joined.addAll(b.l());
+                    return AttributeValue.builder().l(joined).build();
+                };
+            }
+            return operand();
+        }
+
+        Condition orCondition() {
+            Condition left = andCondition();
+            while (acceptKeyword("OR")) {
+                Condition first = left;
+                Condition second = andCondition();
+                left = item -> first.test(item) || second.test(item);
+            }
+            return left;
+        }
+
+        private Condition andCondition() {
+            Condition left = notCondition();
+            while (acceptKeyword("AND")) {
+                Condition first = left;
+                Condition second = notCondition();
+                left = item -> first.test(item) && second.test(item);
+            }
+            return left;
+        }
+
+        private Condition notCondition() {
+            if (acceptKeyword("NOT")) {
+                Condition negated = notCondition();
+                return item -> !negated.test(item);
+            }
+            return primaryCondition();
+        }
+
+        private Condition primaryCondition() {
+            if (accept("(")) {
+                Condition nested = orCondition();
+                expect(")");
+                return nested;
+            }
+            String token = peek();
+            if (token != null && position + 1 < tokens.size() && "(".equals(tokens.get(position + 1))) {
+                switch (token) {
+                    case "attribute_exists": {
+                        Path path = functionPath();
+                        return item -> path.evaluate(item) != null;
+                    }
+                    case "attribute_not_exists": {
+                        Path path = functionPath();
+                        return item -> path.evaluate(item) == null;
+                    }
+                    case "attribute_type": {
+                        next();
+                        expect("(");
+                        Path path = path();
+                        expect(",");
+                        String type = valuePlaceholder().s();
+                        expect(")");
+                        return item -> {
+                            AttributeValue value = path.evaluate(item);
+                            return value != null && type != null && type.equals(typeOf(value));
+                        };
+                    }
+                    case "begins_with": {
+                        next();
+                        expect("(");
+                        Operand subject = operand();
+                        expect(",");
+                        Operand prefix = operand();
+                        expect(")");
+                        return item -> {
+                            AttributeValue value = subject.evaluate(item);
+                            AttributeValue start = prefix.evaluate(item);
+                            if (value == null || start == null) {
+                                return false;
+                            }
+                            if (value.s() != null && start.s() != null) {
+                                return value.s().startsWith(start.s());
+                            }
+                            if (value.b() != null && start.b() != null) {
+                                byte[] bytes = value.b().asByteArrayUnsafe();
+                                byte[] prefixBytes = start.b().asByteArrayUnsafe();
+                                if (prefixBytes.length > bytes.length) {
+                                    return false;
+                                }
+                                for (int i = 0; i < prefixBytes.length; i++) {
+                                    if (bytes[i] != prefixBytes[i]) {
+                                        return false;
+                                    }
+                                }
+                                return true;
+                            }
+                            return false;
+                        };
+                    }
+                    case "contains": {
+                        next();
+                        expect("(");
+                        Operand subject = operand();
+                        expect(",");
+                        Operand operand = operand();
+                        expect(")");
+                        return item -> contains(subject.evaluate(item), operand.evaluate(item));
+                    }
+                    default:
+                        // size(...) and other operands continue below
+                        break;
+                }
+            }
+
+            Operand left = operand();
+            if (acceptKeyword("BETWEEN")) {
+                Operand low = operand();
+                expectKeyword("AND");
+                Operand high = operand();
+                return item -> {
+                    AttributeValue value = left.evaluate(item);
+                    AttributeValue lower = low.evaluate(item);
+                    AttributeValue upper = high.evaluate(item);
+                    return comparable(value, lower) && comparable(value, upper)
+                            && compare(value, lower) >= 0 && compare(value, upper) <= 0;
+                };
+            }
+            if (acceptKeyword("IN")) {
+                expect("(");
+                List<Operand> candidates = new ArrayList<>();
+                do {
+                    candidates.add(operand());
+                } while (accept(","));
+                expect(")");
+                return item -> {
+                    AttributeValue value = left.evaluate(item);
+                    for (Operand candidate : candidates) {
+                        if (same(value, candidate.evaluate(item))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            }
+
+            String comparator = next();
+            Operand right = operand();
+            switch (comparator) {
+                case "=":
+                    return item -> same(left.evaluate(item), right.evaluate(item));
+                case "<>":
+                    return item -> {
+                        AttributeValue a = left.evaluate(item);
+                        AttributeValue b = right.evaluate(item);
+                        return a != null && b != null && !same(a, b);
+                    };
+                case "<":
+                    return item -> ordered(left.evaluate(item), right.evaluate(item), -1, false);
+                case "<=":
+                    return item -> ordered(left.evaluate(item), right.evaluate(item), -1, true);
+                case ">":
+                    return item -> ordered(left.evaluate(item), right.evaluate(item), 1, false);
+                case ">=":
+                    return item -> ordered(left.evaluate(item), right.evaluate(item), 1, true);
+                default:
+                    throw invalid("Syntax error; token: \"" + comparator + "\"");
+            }
+        }
+
+        private Path functionPath() {
+            next();
+            expect("(");
+            Path path = path();
+            expect(")");
+            return path;
+        }
+
+        Operand operand() {
+            String token = peek();
+            if (token == null) {
+                throw invalid("Syntax error; token: <EOF>");
+            }
+            if (token.startsWith(":")) {
+                AttributeValue value = valuePlaceholder();
+                return item -> value;
+            }
+            if ("size".equals(token) && position + 1 < tokens.size() && "(".equals(tokens.get(position + 1))) {
+                Path path = functionPath();
+                return item -> {
+                    AttributeValue value = path.evaluate(item);
+                    return value == null ? null : AttributeValue.builder().n(String.valueOf(size(value))).build();
+                };
+            }
+            return path();
+        }
+
+        Path path() {
+            List<Object> elements = new ArrayList<>();
+            elements.add(name(next()));
+            while (true) {
+                if (accept(".")) {
+                    elements.add(name(next()));
+                } else if (accept("[")) {
+                    String index = next();
+                    try {
+                        elements.add(Integer.parseInt(index));
+                    } catch (NumberFormatException e) {
+                        throw invalid("Invalid list index: " + index);
+                    }
+                    expect("]");
+                } else {
+                    return new Path(elements);
+                }
+            }
+        }
+
+        private String name(String token) {
+            if (token == null) {
+                throw invalid("Syntax error; token: <EOF>");
+            }
+            if (token.startsWith("#")) {
+                String name = names.get(token);
+                if (name == null) {
+                    throw invalid("An expression attribute name used in the document path is not defined; attribute name: " + token);
+                }
+                return name;
+            }
+            if (token.startsWith(":") || !Character.isLetter(token.charAt(0)) && token.charAt(0) != '_') {
+                throw invalid("Syntax error; token: \"" + token + "\"");
+            }
+            return token;
+        }
+
+        private AttributeValue valuePlaceholder() {
+            String token = next();
+            if (token == null || !token.startsWith(":")) {
+                throw invalid("Syntax error; token: \"" + token + "\"");
+            }
+            AttributeValue value = values.get(token);
+            if (value == null) {
+                throw invalid("An expression attribute value used in expression is not defined; attribute value: " + token);
+            }
+            return value;
+        }
+
+        boolean accept(String token) {
+            if (token.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            String token = peek();
+            if (token != null && token.equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw invalid("Syntax error; expected \"" + token + "\" but found " + describe(peek()));
+            }
+        }
+
+        private void expectKeyword(String keyword) {
+            if (!acceptKeyword(keyword)) {
+                throw invalid("Syntax error; expected " + keyword + " but found " + describe(peek()));
+            }
+        }
+
+        void expectEnd() {
+            if (position < tokens.size()) {
+                throw invalid("Syntax error; token: \"" + tokens.get(position) + "\"");
+            }
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private String next() {
+            return position < tokens.size() ? tokens.get(position++) : null;
+        }
+
+        private static String describe(String token) {
+            return token == null ? "<EOF>" : "\"" + token + "\"";
+        }
+
+        private IllegalArgumentException invalid(String message) {
+            return new IllegalArgumentException("Invalid expression \"" + expression + "\": " + message);
+        }
+    }
+
+    private static boolean comparable(AttributeValue a, AttributeValue b) {
+        return a != null && b != null
+                && (a.n() != null && b.n() != null || a.s() != null && b.s() != null || a.b() != null && b.b() != null);
+    }
+
+    private static boolean ordered(AttributeValue left, AttributeValue right, int sign, boolean orEqual) {
+        if (!comparable(left, right)) {
+            return false;
+        }
+        int comparison = compare(left, right) * sign;
+        return comparison > 0 || orEqual && comparison == 0;
+    }
+
+    private interface NumberOperation {
+        BigDecimal apply(BigDecimal a, BigDecimal b);
+    }
+
+    private static AttributeValue arithmetic(AttributeValue left, AttributeValue right, NumberOperation operation) {
+        if (left == null || right == null || left.n() == null || right.n() == null) {
+            throw new IllegalArgumentException("An operand in the update expression has an incorrect data type");
+        }
+        BigDecimal result = operation.apply(new BigDecimal(left.n()), new BigDecimal(right.n()));
+        return AttributeValue.builder().n(result.toPlainString()).build();
+    }
+
+    private static AttributeValue add(AttributeValue existing, AttributeValue value) {
+        if (value.n() != null) {
+            return existing == null ? value : arithmetic(existing, value, BigDecimal::add);
+        }
+        if (value.hasSs()) {
+            Set<String> union = new LinkedHashSet<>(existing == null ? List.of() : existing.ss());
+            union.addAll(value.ss());
+            return AttributeValue.builder().ss(new ArrayList<>(union)).build();
+        }
+        if (value.hasNs()) {
+            Set<String> union = new LinkedHashSet<>(existing == null ? List.of() : existing.ns());
+            union.addAll(value.ns());
+            return AttributeValue.builder().ns(new ArrayList<>(union)).build();
+        }
+        throw new IllegalArgumentException("Incorrect operand type for operator or function; operator: ADD");
+    }
+
+    private static AttributeValue delete(AttributeValue existing, AttributeValue value) {
+        if (existing == null) {
+            return null;
+        }
+        if (value.hasSs() && existing.hasSs()) {
+            List<String> remaining = new ArrayList<>(existing.ss());
+            remaining.removeAll(value.ss());
+            return remaining.isEmpty() ? null : AttributeValue.builder().ss(remaining).build();
+        }
+        if (value.hasNs() && existing.hasNs()) {
+            List<String> remaining = new ArrayList<>(existing.ns());
+            remaining.removeAll(value.ns());
+            return remaining.isEmpty() ? null : AttributeValue.builder().ns(remaining).build();
+        }
+        throw new IllegalArgumentException("Incorrect operand type for operator or function; operator: DELETE");
+    }
+
+    private static boolean contains(AttributeValue value, AttributeValue operand) {
+        if (value == null || operand == null) {
+            return false;
+        }
+        if (value.s() != null && operand.s() != null) {
+            return value.s().contains(operand.s());
+        }
+        if (value.hasSs() && operand.s() != null) {
+            return value.ss().contains(operand.s());
+        }
+        if (value.hasNs() && operand.n() != null) {
+            for (String n : value.ns()) {
+                if (new BigDecimal(n).compareTo(new BigDecimal(operand.n())) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (value.hasL()) {
+            for (AttributeValue element : value.l()) {
+                if (same(element, operand)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int size(AttributeValue value) {
+        if (value.s() != null) {
+            return value.s().length();
+        }
+        if (value.b() != null) {
+            return value.b().asByteArrayUnsafe().length;
+        }
+        if (value.hasL()) {
+            return value.l().size();
+        }
+        if (value.hasM()) {
+            return value.m().size();
+        }
+        if (value.hasSs()) {
+            return value.ss().size();
+        }
+        if (value.hasNs()) {
+            return value.ns().size();
+        }
+        if (value.hasBs()) {
+            return value.bs().size();
+        }
+        throw new IllegalArgumentException("Incorrect operand type for operator or function; operator or function: size");
+    }
+
+    static String typeOf(AttributeValue value) {
+        if (value.s() != null) {
+            return "S";
+        }
+        if (value.n() != null) {
+            return "N";
+        }
+        if (value.b() != null) {
+            return "B";
+        }
+        if (value.bool() != null) {
+            return "BOOL";
+        }
+        if (Boolean.TRUE.equals(value.nul())) {
+            return "NULL";
+        }
+        if (value.hasL()) {
+            return "L";
+        }
+        if (value.hasM()) {
+            return "M";
+        }
+        if (value.hasSs()) {
+            return "SS";
+        }
+        if (value.hasNs()) {
+            return "NS";
+        }
+        if (value.hasBs()) {
+            return "BS";
+        }
+        return "NULL";
+    }
+
+    /**
+     * Approximate stored size in bytes (names plus values), which is what capacity units are computed from.
+     */
+    static long itemSize(Map<String, AttributeValue> item) {
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            size += entry.getKey().length() + valueSize(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long valueSize(AttributeValue value) {
+        if (value.s() != null) {
+            return value.s().length();
+        }
+        if (value.n() != null) {
+            return value.n().length() / 2 + 1;
+        }
+        if (value.b() != null) {
+            return value.b().asByteArrayUnsafe().length;
+        }
+        if (value.hasL()) {
+            long size = 3;
+            for (AttributeValue element : value.l()) {
+                size += 1 + valueSize(element);
+            }
+            return size;
+        }
+        if (value.hasM()) {
+            return 3 + itemSize(value.m());
+        }
+        if (value.hasSs()) {
+            return value.ss().stream().mapToLong(String::length).sum();
+        }
+        if (value.hasNs()) {
+            return value.ns().stream().mapToLong(n -> n.length() / 2 + 1).sum();
+        }
+        if (value.hasBs()) {
+            return value.bs().stream().mapToLong(bytes -> bytes.asByteArrayUnsafe().length).sum();
+        }
+        return 1;
+    }
+}
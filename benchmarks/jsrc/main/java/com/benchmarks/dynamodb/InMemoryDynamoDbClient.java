@@ -0,0 +1,979 @@
+package com.benchmarks.dynamodb;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link DynamoDbClient} that keeps its tables in memory, for benchmarking the handlers without AWS.
+ * Supported: CreateTable (with global and local secondary indexes), GetItem, PutItem, UpdateItem and
+ * DeleteItem with condition expressions, BatchGetItem, BatchWriteItem, TransactWriteItems, and Query and
+ * Scan with key conditions, filters, projections, {@code Limit}, the 1 MB page size, pagination keys and
+ * parallel scan segments. Other operations throw {@link UnsupportedOperationException}.
+ *
+ * <p>Every call first waits {@code latency}. With a {@code throttleRate} above zero that fraction of calls
+ * (or of the items of a batch call) is throttled, drawn from a {@code Random} with a fixed seed: single-item
+ * calls throw {@link ProvisionedThroughputExceededException}, batch calls hand the throttled items back as
+ * unprocessed and transactions are cancelled with {@code ThrottlingError}. There is no SDK retry policy in
+ * front of it, so callers see every throttle. Operations run one at a time under a single lock, which
+ * makes transactions atomic.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final int MAX_TRANSACTION_ITEMS = 100;
+    private static final long MAX_PAGE_BYTES = 1024 * 1024;
+    private static final Pattern EQUALITY = Pattern.compile("([#\\w]+)\\s*=\\s*(:\\w+)");
+
+    private final Map<String, Table> tables = new HashMap<>();
+    private final Duration latency;
+    private final double throttleRate;
+    private final Random random;
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+
+    public InMemoryDynamoDbClient(Duration latency, double throttleRate, long seed) {
+        this.latency = latency;
+        this.throttleRate = throttleRate;
+        this.random = new Random(seed);
+    }
+
+    public InMemoryDynamoDbClient() {
+        this(Duration.ZERO, 0, 0);
+    }
+
+    /**
+     * Shortcut for a table keyed by a single string attribute, the way all tables of this repository are.
+     */
+    public void createTable(String tableName, String hashKey) {
+        createTable(CreateTableRequest.builder()
+                .tableName(tableName)
+                .keySchema(KeySchemaElement.builder().attributeName(hashKey).keyType(KeyType.HASH).build())
+                .build());
+    }
+
+    /**
+     * Stores {@code items} as they are, without latency, throttling or counting, for loading a table before a run.
+     */
+    public void load(String tableName, Collection<Map<String, AttributeValue>> items) {
+        synchronized (tables) {
+            Table table = table(tableName);
+            for (Map<String, AttributeValue> item : items) {
+                table.store(table.key(item, false), new HashMap<>(item));
+            }
+        }
+    }
+
+    /**
+     * Calls made per operation name (e.g. {@code "Query"}), throttled ones included.
+     */
+    public long getRequestCount(String operation) {
+        LongAdder count = requests.get(operation);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Calls, or items of batch calls, that were throttled.
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        begin("CreateTable");
+        synchronized (tables) {
+            if (tables.containsKey(request.tableName())) {
+                throw ResourceInUseException.builder()
+                        .message("Table already exists: " + request.tableName())
+                        .awsErrorDetails(errorDetails("ResourceInUseException", "Table already exists: " + request.tableName()))
+                        .statusCode(400)
+                        .build();
+            }
+            Table table = new Table(request.tableName(), keyName(request.keySchema(), KeyType.HASH),
+                    keyName(request.keySchema(), KeyType.RANGE));
+            for (GlobalSecondaryIndex index : request.globalSecondaryIndexes()) {
+                table.indexes.put(index.indexName(), new Index(index.indexName(),
+                        keyName(index.keySchema(), KeyType.HASH), keyName(index.keySchema(), KeyType.RANGE)));
+            }
+            for (LocalSecondaryIndex index : request.localSecondaryIndexes()) {
+                table.indexes.put(index.indexName(), new Index(index.indexName(),
+                        keyName(index.keySchema(), KeyType.HASH), keyName(index.keySchema(), KeyType.RANGE)));
+            }
+            tables.put(table.name, table);
+        }
+        return CreateTableResponse.builder().build();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        begin("GetItem");
+        throttleCall();
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Map<String, AttributeValue> item = table.items.get(table.key(request.key(), true));
+            List<Expressions.Path> projection = projection(request.projectionExpression(), request.expressionAttributeNames());
+            GetItemResponse.Builder response = GetItemResponse.builder();
+            if (item != null) {
+                response.item(Expressions.project(item, projection));
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(readCapacity(table.name, item == null ? 0 : Expressions.itemSize(item),
+                        Boolean.TRUE.equals(request.consistentRead())));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        begin("PutItem");
+        throttleCall();
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Key key = table.key(request.item(), false);
+            Map<String, AttributeValue> existing = table.items.get(key);
+            checkCondition(request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), existing);
+            table.store(key, new HashMap<>(request.item()));
+
+            PutItemResponse.Builder response = PutItemResponse.builder();
+            if (request.returnValues() == ReturnValue.ALL_OLD && existing != null) {
+                response.attributes(existing);
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(writeCapacity(table.name, Expressions.itemSize(request.item()), 1));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        begin("UpdateItem");
+        throttleCall();
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Key key = table.key(request.key(), true);
+            Map<String, AttributeValue> existing = table.items.get(key);
+            checkCondition(request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), existing);
+            Map<String, AttributeValue> updated = table.updated(request.key(), existing, request.updateExpression(),
+                    request.expressionAttributeNames(), request.expressionAttributeValues());
+            table.store(key, updated);
+
+            UpdateItemResponse.Builder response = UpdateItemResponse.builder();
+            if (request.returnValues() == ReturnValue.ALL_NEW) {
+                response.attributes(updated);
+            } else if (request.returnValues() == ReturnValue.ALL_OLD && existing != null) {
+                response.attributes(existing);
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(writeCapacity(table.name, Expressions.itemSize(updated), 1));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        begin("DeleteItem");
+        throttleCall();
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Key key = table.key(request.key(), true);
+            Map<String, AttributeValue> existing = table.items.get(key);
+            checkCondition(request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), existing);
+            table.remove(key);
+
+            DeleteItemResponse.Builder response = DeleteItemResponse.builder();
+            if (request.returnValues() == ReturnValue.ALL_OLD && existing != null) {
+                response.attributes(existing);
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(writeCapacity(table.name, existing == null ? 0 : Expressions.itemSize(existing), 1));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        begin("BatchGetItem");
+        int keyCount = request.requestItems().values().stream().mapToInt(keys -> keys.keys().size()).sum();
+        if (keyCount == 0 || keyCount > MAX_BATCH_GET_KEYS) {
+            throw validation("Too many items requested for the BatchGetItem call");
+        }
+        synchronized (tables) {
+            Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+            Map<String, KeysAndAttributes> unprocessed = new HashMap<>();
+            List<ConsumedCapacity> capacity = new ArrayList<>();
+            int throttledKeys = 0;
+            for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
+                Table table = table(entry.getKey());
+                KeysAndAttributes keys = entry.getValue();
+                List<Expressions.Path> projection = projection(keys.projectionExpression(), keys.expressionAttributeNames());
+                List<Map<String, AttributeValue>> found = new ArrayList<>();
+                List<Map<String, AttributeValue>> skipped = new ArrayList<>();
+                long bytes = 0;
+                for (Map<String, AttributeValue> key : keys.keys()) {
+                    if (throttleItem()) {
+                        skipped.add(key);
+                        throttledKeys++;
+                        continue;
+                    }
+                    Map<String, AttributeValue> item = table.items.get(table.key(key, true));
+                    if (item != null) {
+                        found.add(Expressions.project(item, projection));
+                        bytes += Expressions.itemSize(item);
+                    }
+                }
+                responses.put(table.name, found);
+                if (!skipped.isEmpty()) {
+                    unprocessed.put(table.name, keys.toBuilder().keys(skipped).build());
+                }
+                capacity.add(readCapacity(table.name, bytes, Boolean.TRUE.equals(keys.consistentRead())));
+            }
+            if (throttledKeys == keyCount) {
+                throw throughputExceeded();
+            }
+            BatchGetItemResponse.Builder response = BatchGetItemResponse.builder()
+                    .responses(responses)
+                    .unprocessedKeys(unprocessed);
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(capacity);
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        begin("BatchWriteItem");
+        int itemCount = request.requestItems().values().stream().mapToInt(List::size).sum();
+        if (itemCount == 0 || itemCount > MAX_BATCH_WRITE_ITEMS) {
+            throw validation("Member must have length less than or equal to " + MAX_BATCH_WRITE_ITEMS);
+        }
+        synchronized (tables) {
+            // the whole request is validated before anything is written
+            Set<Key> seen = new HashSet<>();
+            for (Map.Entry<String, List<WriteRequest>> entry : request.requestItems().entrySet()) {
+                Table table = table(entry.getKey());
+                for (WriteRequest write : entry.getValue()) {
+                    Map<String, AttributeValue> key = write.putRequest() != null
+                            ? write.putRequest().item() : write.deleteRequest().key();
+                    if (!seen.add(new Key(table.name, table.key(key, write.deleteRequest() != null)))) {
+                        throw validation("Provided list of item keys contains duplicates");
+                    }
+                }
+            }
+
+            Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+            List<ConsumedCapacity> capacity = new ArrayList<>();
+            int throttledItems = 0;
+            for (Map.Entry<String, List<WriteRequest>> entry : request.requestItems().entrySet()) {
+                Table table = table(entry.getKey());
+                double units = 0;
+                for (WriteRequest write : entry.getValue()) {
+                    if (throttleItem()) {
+                        unprocessed.computeIfAbsent(table.name, name -> new ArrayList<>()).add(write);
+                        throttledItems++;
+                        continue;
+                    }
+                    PutRequest put = write.putRequest();
+                    DeleteRequest delete = write.deleteRequest();
+                    if (put != null) {
+                        table.store(table.key(put.item(), false), new HashMap<>(put.item()));
+                        units += writeUnits(Expressions.itemSize(put.item()));
+                    } else {
+                        table.remove(table.key(delete.key(), true));
+                        units += 1;
+                    }
+                }
+                capacity.add(ConsumedCapacity.builder().tableName(table.name).capacityUnits(units).build());
+            }
+            if (throttledItems == itemCount) {
+                throw throughputExceeded();
+            }
+            BatchWriteItemResponse.Builder response = BatchWriteItemResponse.builder().unprocessedItems(unprocessed);
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(capacity);
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        begin("TransactWriteItems");
+        List<TransactWriteItem> writes = request.transactItems();
+        if (writes.isEmpty() || writes.size() > MAX_TRANSACTION_ITEMS) {
+            throw validation("Member must have length less than or equal to " + MAX_TRANSACTION_ITEMS);
+        }
+        if (throttleItem()) {
+            throttled.increment();
+            List<CancellationReason> reasons = new ArrayList<>();
+            for (int i = 0; i < writes.size(); i++) {
+                reasons.add(CancellationReason.builder().code("ThrottlingError")
+                        .message("Throughput exceeds the current capacity for one or more global secondary indexes.").build());
+            }
+            throw cancelled(reasons);
+        }
+
+        synchronized (tables) {
+            List<Runnable> apply = new ArrayList<>(writes.size());
+            List<CancellationReason> reasons = new ArrayList<>(writes.size());
+            boolean failed = false;
+            Set<Key> touched = new HashSet<>();
+            Map<String, Double> units = new LinkedHashMap<>();
+            for (TransactWriteItem write : writes) {
+                String tableName;
+                Map<String, AttributeValue> keyAttributes;
+                String condition;
+                Map<String, String> names;
+                Map<String, AttributeValue> values;
+                if (write.put() != null) {
+                    tableName = write.put().tableName();
+                    keyAttributes = write.put().item();
+                    condition = write.put().conditionExpression();
+                    names = write.put().expressionAttributeNames();
+                    values = write.put().expressionAttributeValues();
+                } else if (write.update() != null) {
+                    tableName = write.update().tableName();
+                    keyAttributes = write.update().key();
+                    condition = write.update().conditionExpression();
+                    names = write.update().expressionAttributeNames();
+                    values = write.update().expressionAttributeValues();
+                } else if (write.delete() != null) {
+                    tableName = write.delete().tableName();
+                    keyAttributes = write.delete().key();
+                    condition = write.delete().conditionExpression();
+                    names = write.delete().expressionAttributeNames();
+                    values = write.delete().expressionAttributeValues();
+                } else {
+                    tableName = write.conditionCheck().tableName();
+                    keyAttributes = write.conditionCheck().key();
+                    condition = write.conditionCheck().conditionExpression();
+                    names = write.conditionCheck().expressionAttributeNames();
+                    values = write.conditionCheck().expressionAttributeValues();
+                }
+
+                Table table = table(tableName);
+                Key key = table.key(keyAttributes, write.put() == null);
+                if (!touched.add(new Key(table.name, key))) {
+                    throw validation("Transaction request cannot include multiple operations on one item");
+                }
+                Map<String, AttributeValue> existing = table.items.get(key);
+                boolean passed = condition == null || condition(condition, names, values).test(existing == null ? Map.of() : existing);
+                reasons.add(passed
+                        ? CancellationReason.builder().code("None").build()
+                        : CancellationReason.builder().code("ConditionalCheckFailed").message("The conditional request failed").build());
+                failed |= !passed;
+
+                if (write.put() != null) {
+                    Map<String, AttributeValue> item = new HashMap<>(write.put().item());
+                    apply.add(() -> table.store(key, item));
+                    units.merge(table.name, 2 * writeUnits(Expressions.itemSize(item)), Double::sum);
+                } else if (write.update() != null) {
+                    Map<String, AttributeValue> updated = table.updated(keyAttributes, existing,
+                            write.update().updateExpression(), names, values);
+                    apply.add(() -> table.store(key, updated));
+                    units.merge(table.name, 2 * writeUnits(Expressions.itemSize(updated)), Double::sum);
+                } else if (write.delete() != null) {
+                    apply.add(() -> table.remove(key));
+                    units.merge(table.name, 2.0, Double::sum);
+                } else {
+                    units.merge(table.name, 2.0, Double::sum);
+                }
+            }
+            if (failed) {
+                throw cancelled(reasons);
+            }
+            apply.forEach(Runnable::run);
+
+            TransactWriteItemsResponse.Builder response = TransactWriteItemsResponse.builder();
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                List<ConsumedCapacity> capacity = new ArrayList<>();
+                units.forEach((name, total) -> capacity.add(ConsumedCapacity.builder().tableName(name).capacityUnits(total).build()));
+                response.consumedCapacity(capacity);
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        begin("Query");
+        throttleCall();
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Index index = request.indexName() == null ? table.primary : table.indexes.get(request.indexName());
+            if (index == null) {
+                throw validation("The table does not have the specified index: " + request.indexName());
+            }
+            if (request.keyConditionExpression() == null) {
+                throw validation("Either the KeyConditions or KeyConditionExpression parameter must be specified in the request.");
+            }
+            AttributeValue partition = partitionValue(request.keyConditionExpression(),
+                    request.expressionAttributeNames(), request.expressionAttributeValues(), index.hashKey);
+            Expressions.Condition keyCondition = condition(request.keyConditionExpression(),
+                    request.expressionAttributeNames(), request.expressionAttributeValues());
+
+            NavigableMap<Key, Map<String, AttributeValue>> range = index.items.subMap(
+                    Key.lowest(partition), true, Key.highest(partition), true);
+            boolean forward = !Boolean.FALSE.equals(request.scanIndexForward());
+            if (!forward) {
+                range = range.descendingMap();
+            }
+            if (request.hasExclusiveStartKey()) {
+                Key start = index.key(table, request.exclusiveStartKey());
+                range = range.tailMap(start, false);
+            }
+
+            Page page = page(table, index, range.values().iterator(), keyCondition,
+                    filter(request.filterExpression(), request.expressionAttributeNames(), request.expressionAttributeValues()),
+                    projection(request.projectionExpression(), request.expressionAttributeNames()),
+                    request.limit(), request.select() == Select.COUNT);
+
+            QueryResponse.Builder response = QueryResponse.builder()
+                    .count(page.items.size())
+                    .scannedCount(page.scanned);
+            if (request.select() != Select.COUNT) {
+                response.items(page.items);
+            }
+            if (page.lastEvaluatedKey != null) {
+                response.lastEvaluatedKey(page.lastEvaluatedKey);
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(readCapacity(table.name, page.bytes, Boolean.TRUE.equals(request.consistentRead())));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        begin("Scan");
+        throttleCall();
+        if (request.segment() != null || request.totalSegments() != null) {
+            if (request.segment() == null || request.totalSegments() == null
+                    || request.segment() < 0 || request.segment() >= request.totalSegments()) {
+                throw validation("Segment must be between 0 and TotalSegments - 1 and both must be set");
+            }
+        }
+        synchronized (tables) {
+            Table table = table(request.tableName());
+            Index index = request.indexName() == null ? table.primary : table.indexes.get(request.indexName());
+            if (index == null) {
+                throw validation("The table does not have the specified index: " + request.indexName());
+            }
+            NavigableMap<Key, Map<String, AttributeValue>> range = index.items;
+            if (request.hasExclusiveStartKey()) {
+                range = range.tailMap(index.key(table, request.exclusiveStartKey()), false);
+            }
+            Iterator<Map<String, AttributeValue>> items = range.values().iterator();
+            if (request.totalSegments() != null) {
+                int segment = request.segment();
+                int totalSegments = request.totalSegments();
+                List<Map<String, AttributeValue>> inSegment = new ArrayList<>();
+                range.values().forEach(item -> {
+                    if (Math.floorMod(Key.hashPart(item.get(table.primary.hashKey)), totalSegments) == segment) {
+                        inSegment.add(item);
+                    }
+                });
+                items = inSegment.iterator();
+            }
+
+            Page page = page(table, index, items, null,
+                    filter(request.filterExpression(), request.expressionAttributeNames(), request.expressionAttributeValues()),
+                    projection(request.projectionExpression(), request.expressionAttributeNames()),
+                    request.limit(), request.select() == Select.COUNT);
+
+            ScanResponse.Builder response = ScanResponse.builder()
+                    .count(page.items.size())
+                    .scannedCount(page.scanned);
+            if (request.select() != Select.COUNT) {
+                response.items(page.items);
+            }
+            if (page.lastEvaluatedKey != null) {
+                response.lastEvaluatedKey(page.lastEvaluatedKey);
+            }
+            if (wantsCapacity(request.returnConsumedCapacity())) {
+                response.consumedCapacity(readCapacity(table.name, page.bytes, Boolean.TRUE.equals(request.consistentRead())));
+            }
+            return response.build();
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static final class Page {
+        private final List<Map<String, AttributeValue>> items = new ArrayList<>();
+        private int scanned;
+        private long bytes;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+    }
+
+    /**
+     * Reads items until {@code limit} items were evaluated or 1 MB was read, the way DynamoDB pages. The key
+     * condition decides what is read at all; the filter only decides what is returned.
+     */
+    private static Page page(Table table, Index index, Iterator<Map<String, AttributeValue>> items,
+                             Expressions.Condition keyCondition, Expressions.Condition filter,
+                             List<Expressions.Path> projection, Integer limit, boolean countOnly) {
+        Page page = new Page();
+        Map<String, AttributeValue> last = null;
+        while (items.hasNext()) {
+            if (limit != null && page.scanned >= limit || page.bytes >= MAX_PAGE_BYTES) {
+                page.lastEvaluatedKey = index.keyAttributes(table, last);
+                break;
+            }
+            Map<String, AttributeValue> item = items.next();
+            if (keyCondition != null && !keyCondition.test(item)) {
+                continue;
+            }
+            page.scanned++;
+            page.bytes += Expressions.itemSize(item);
+            last = item;
+            if (filter == null || filter.test(item)) {
+                page.items.add(countOnly ? item : Expressions.project(item, projection));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Partition key value named by the key condition, which has to compare the index's hash key for equality.
+     */
+    private static AttributeValue partitionValue(String keyCondition, Map<String, String> names,
+                                                 Map<String, AttributeValue> values, String hashKey) {
+        Matcher matcher = EQUALITY.matcher(keyCondition);
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (name.startsWith("#")) {
+                name = names == null ? null : names.get(name);
+            }
+            if (hashKey.equals(name)) {
+                AttributeValue value = values == null ? null : values.get(matcher.group(2));
+                if (value == null) {
+                    throw validation("An expression attribute value used in expression is not defined; attribute value: " + matcher.group(2));
+                }
+                return value;
+            }
+        }
+        throw validation("Query condition missed key schema element: " + hashKey);
+    }
+
+    private void checkCondition(String expression, Map<String, String> names, Map<String, AttributeValue> values,
+                                Map<String, AttributeValue> existing) {
+        if (expression != null && !condition(expression, names, values).test(existing == null ? Map.of() : existing)) {
+            throw ConditionalCheckFailedException.builder()
+                    .message("The conditional request failed")
+                    .awsErrorDetails(errorDetails("ConditionalCheckFailedException", "The conditional request failed"))
+                    .statusCode(400)
+                    .build();
+        }
+    }
+
+    private static Expressions.Condition condition(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        try {
+            return Expressions.condition(expression, names, values);
+        } catch (IllegalArgumentException e) {
+            throw validation(e.getMessage());
+        }
+    }
+
+    private static Expressions.Condition filter(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        return expression == null ? null : condition(expression, names, values);
+    }
+
+    private static List<Expressions.Path> projection(String expression, Map<String, String> names) {
+        if (expression == null) {
+            return null;
+        }
+        try {
+            return Expressions.projection(expression, names);
+        } catch (IllegalArgumentException e) {
+            throw validation(e.getMessage());
+        }
+    }
+
+    private Table table(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw ResourceNotFoundException.builder()
+                    .message("Requested resource not found: Table: " + tableName + " not found")
+                    .awsErrorDetails(errorDetails("ResourceNotFoundException", "Requested resource not found"))
+                    .statusCode(400)
+                    .build();
+        }
+        return table;
+    }
+
+    private void begin(String operation) {
+        requests.computeIfAbsent(operation, name -> new LongAdder()).increment();
+        if (!latency.isZero()) {
+            LockSupport.parkNanos(latency.toNanos());
+        }
+    }
+
+    private void throttleCall() {
+        if (throttleItem()) {
+            throw throughputExceeded();
+        }
+    }
+
+    private boolean throttleItem() {
+        if (throttleRate <= 0) {
+            return false;
+        }
+        boolean throttle;
+        synchronized (random) {
+            throttle = random.nextDouble() < throttleRate;
+        }
+        if (throttle) {
+            throttled.increment();
+        }
+        return throttle;
+    }
+
+    private static boolean wantsCapacity(ReturnConsumedCapacity returnConsumedCapacity) {
+        return returnConsumedCapacity == ReturnConsumedCapacity.TOTAL || returnConsumedCapacity == ReturnConsumedCapacity.INDEXES;
+    }
+
+    private static ConsumedCapacity readCapacity(String tableName, long bytes, boolean consistent) {
+        double units = Math.max(1, Math.ceil(bytes / 4096.0)) * (consistent ? 1 : 0.5);
+        return ConsumedCapacity.builder().tableName(tableName).capacityUnits(units).build();
+    }
+
+    private static ConsumedCapacity writeCapacity(String tableName, long bytes, int multiplier) {
+        return ConsumedCapacity.builder().tableName(tableName).capacityUnits(writeUnits(bytes) * multiplier).build();
+    }
+
+    private static double writeUnits(long bytes) {
+        return Math.max(1, Math.ceil(bytes / 1024.0));
+    }
+
+    private static String keyName(List<KeySchemaElement> keySchema, KeyType type) {
+        for (KeySchemaElement element : keySchema) {
+            if (element.keyType() == type) {
+                return element.attributeName();
+            }
+        }
+        if (type == KeyType.HASH) {
+            throw validation("Key schema must contain a HASH key");
+        }
+        return null;
+    }
+
+    private static AwsErrorDetails errorDetails(String errorCode, String message) {
+        return AwsErrorDetails.builder().errorCode(errorCode).errorMessage(message).serviceName("DynamoDb").build();
+    }
+
+    private static DynamoDbException validation(String message) {
+        return (DynamoDbException) DynamoDbException.builder()
+                .message(message)
+                .awsErrorDetails(errorDetails("ValidationException", message))
+                .statusCode(400)
+                .build();
+    }
+
+    private static ProvisionedThroughputExceededException throughputExceeded() {
+        String message = "The level of configured provisioned throughput for the table was exceeded.";
+        return ProvisionedThroughputExceededException.builder()
+                .message(message)
+                .awsErrorDetails(errorDetails("ProvisionedThroughputExceededException", message))
+                .statusCode(400)
+                .build();
+    }
+
+    private static TransactionCanceledException cancelled(List<CancellationReason> reasons) {
+        StringBuilder codes = new StringBuilder();
+        for (CancellationReason reason : reasons) {
+            codes.append(codes.length() == 0 ? "" : ", ").append(reason.code());
+        }
+        String message = "Transaction cancelled, please refer cancellation reasons for specific reasons [" + codes + "]";
+        return TransactionCanceledException.builder()
+                .message(message)
+                .cancellationReasons(reasons)
+                .awsErrorDetails(errorDetails("TransactionCanceledException", message))
+                .statusCode(400)
+                .build();
+    }
+
+    private static final class Table {
+        private final String name;
+        private final Index primary;
+        private final Map<String, Index> indexes = new LinkedHashMap<>();
+        private final TreeMap<Key, Map<String, AttributeValue>> items;
+
+        Table(String name, String hashKey, String rangeKey) {
+            this.name = name;
+            this.primary = new Index(null, hashKey, rangeKey);
+            this.items = primary.items;
+        }
+
+        /**
+         * Primary key of an item or key map. With {@code exact} the map may only hold key attributes.
+         */
+        Key key(Map<String, AttributeValue> attributes, boolean exact) {
+            AttributeValue hash = attributes.get(primary.hashKey);
+            AttributeValue range = primary.rangeKey == null ? null : attributes.get(primary.rangeKey);
+            if (hash == null || primary.rangeKey != null && range == null) {
+                throw validation("One or more parameter values were invalid: Missing the key "
+                        + (hash == null ? primary.hashKey : primary.rangeKey) + " in the item");
+            }
+            if (exact && attributes.size() != (primary.rangeKey == null ? 1 : 2)) {
+                throw validation("The provided key element does not match the schema");
+            }
+            return Key.of(hash, range);
+        }
+
+        Map<String, AttributeValue> updated(Map<String, AttributeValue> key, Map<String, AttributeValue> existing,
+                                            String updateExpression, Map<String, String> names,
+                                            Map<String, AttributeValue> values) {
+            Map<String, AttributeValue> original = existing != null ? existing : new HashMap<>(key);
+            Map<String, AttributeValue> updated = new HashMap<>(original);
+            if (updateExpression != null) {
+                try {
+                    for (Expressions.UpdateAction action : Expressions.update(updateExpression, names, values)) {
+                        action.apply(original, updated);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw validation(e.getMessage());
+                }
+            }
+            for (Map.Entry<String, AttributeValue> keyAttribute : key.entrySet()) {
+                if (!keyAttribute.getValue().equals(updated.get(keyAttribute.getKey()))) {
+                    throw validation("One or more parameter values were invalid: Cannot update attribute "
+                            + keyAttribute.getKey() + ". This attribute is part of the key");
+                }
+            }
+            return updated;
+        }
+
+        void store(Key key, Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> stored = Collections.unmodifiableMap(item);
+            Map<String, AttributeValue> previous = items.put(key, stored);
+            for (Index index : indexes.values()) {
+                if (previous != null) {
+                    index.remove(this, previous);
+                }
+                index.add(this, stored);
+            }
+        }
+
+        void remove(Key key) {
+            Map<String, AttributeValue> previous = items.remove(key);
+            if (previous != null) {
+                for (Index index : indexes.values()) {
+                    index.remove(this, previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Items ordered by (hash, range) of the index and then by the table's primary key; the table itself is
+     * its own primary index.
+     */
+    private static final class Index {
+        private final String name;
+        private final String hashKey;
+        private final String rangeKey;
+        private final TreeMap<Key, Map<String, AttributeValue>> items = new TreeMap<>();
+
+        Index(String name, String hashKey, String rangeKey) {
+            this.name = name;
+            this.hashKey = hashKey;
+            this.rangeKey = rangeKey;
+        }
+
+        Key key(Table table, Map<String, AttributeValue> item) {
+            AttributeValue hash = item.get(hashKey);
+            AttributeValue range = rangeKey == null ? null : item.get(rangeKey);
+            if (name == null) {
+                return Key.of(hash, range);
+            }
+            return Key.of(hash, range, item.get(table.primary.hashKey),
+                    table.primary.rangeKey == null ? null : item.get(table.primary.rangeKey));
+        }
+
+        Map<String, AttributeValue> keyAttributes(Table table, Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> key = new HashMap<>();
+            for (String attribute : new String[]{hashKey, rangeKey, table.primary.hashKey, table.primary.rangeKey}) {
+                if (attribute != null && item.containsKey(attribute)) {
+                    key.put(attribute, item.get(attribute));
+                }
+            }
+            return key;
+        }
+
+        void add(Table table, Map<String, AttributeValue> item) {
+            // secondary indexes are sparse: items without the index keys are not in them
+            if (item.containsKey(hashKey) && (rangeKey == null || item.containsKey(rangeKey))) {
+                items.put(key(table, item), item);
+            }
+        }
+
+        void remove(Table table, Map<String, AttributeValue> item) {
+            if (item.containsKey(hashKey) && (rangeKey == null || item.containsKey(rangeKey))) {
+                items.remove(key(table, item));
+            }
+        }
+    }
+
+    /**
+     * Composite key compared part by part. {@code null} parts (no range key) sort first; the
+     * {@link #LOWEST}/{@link #HIGHEST} markers bound the range of one partition.
+     */
+    private static final class Key implements Comparable<Key> {
+        private static final AttributeValue LOWEST = AttributeValue.builder().s("lowest").build();
+        private static final AttributeValue HIGHEST = AttributeValue.builder().s("highest").build();
+
+        private final String table;
+        private final AttributeValue[] parts;
+
+        private Key(String table, AttributeValue[] parts) {
+            this.table = table;
+            this.parts = parts;
+        }
+
+        /**
+         * The same key scoped to a table, for duplicate checks across tables.
+         */
+        Key(String table, Key key) {
+            this(table, key.parts);
+        }
+
+        static Key of(AttributeValue... parts) {
+            return new Key(null, parts);
+        }
+
+        static Key lowest(AttributeValue partition) {
+            return of(partition, LOWEST);
+        }
+
+        static Key highest(AttributeValue partition) {
+            return of(partition, HIGHEST);
+        }
+
+        static int hashPart(AttributeValue value) {
+            return value == null ? 0 : String.valueOf(value.s() != null ? value.s() : value.n() != null ? value.n() : value.b()).hashCode();
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            for (int i = 0; i < Math.min(parts.length, other.parts.length); i++) {
+                int comparison = comparePart(parts[i], other.parts[i]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(parts.length, other.parts.length);
+        }
+
+        private static int comparePart(AttributeValue a, AttributeValue b) {
+            if (a == b) {
+                return 0;
+            }
+            if (a == LOWEST || b == HIGHEST) {
+                return -1;
+            }
+            if (a == HIGHEST || b == LOWEST) {
+                return 1;
+            }
+            if (a == null || b == null) {
+                return a == null ? -1 : 1;
+            }
+            return Expressions.compare(a, b);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return java.util.Objects.equals(table, key.table) && compareTo(key) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = java.util.Objects.hashCode(table);
+            for (AttributeValue part : parts) {
+                hash = 31 * hash + hashPart(part);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.benchmarks.load;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.benchmarks.ApiHandlerBenchmark.Route;
+import com.benchmarks.BookingApi;
+import com.benchmarks.FakeContext;
+import com.benchmarks.StubDynamoDbClient;
+import com.task11.RateLimiter;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@code com.task11.ApiHandler} behind API Gateway proxy events, picking each request's route from a
+ * weighted mix. Table ids, dates and slots are randomized so the table cache and the slot ledger see a
+ * spread of keys; a response counts as failed on a 5xx or a 429 from the rate limiter.
+ */
+public class ApiWorkload implements Workload {
+
+    public static final String DEFAULT_MIX =
+            "GET_TABLES=20,GET_TABLE_BY_ID=30,GET_RESERVATIONS=15,GET_RESERVATIONS_BY_PHONE=10,"
+                    + "POST_RESERVATION=15,POST_RESERVATION_BATCH=5,POST_SIGNIN=5";
+
+    private static final String[] SLOTS = {"12:00", "14:00", "16:00", "18:00", "20:00", "22:00"};
+
+    private final BookingApi api;
+    private final int tables;
+    private final Route[] routes;
+    private final int[] cumulativeWeights;
+    private final Context context = new FakeContext();
+
+    public ApiWorkload(String mix, int tables, Duration latency) throws Exception {
+        this(mix, tables, new StubDynamoDbClient(tables, 1000, latency), latency, RateLimiter.unlimited());
+    }
+
+    /**
+     * Against {@code dynamoDbClient}, which has to hold at least {@code tables} tables; {@code cognitoLatency}
+     * is the time each stub Cognito call takes. All requests come from one caller, so {@code rateLimiter} limits
+     * each route to its bucket.
+     */
+    public ApiWorkload(String mix, int tables, DynamoDbClient dynamoDbClient, Duration cognitoLatency,
+                       RateLimiter rateLimiter) throws Exception {
+        this.api = new BookingApi(dynamoDbClient, cognitoLatency, rateLimiter);
+        this.tables = tables;
+        List<Route> parsedRoutes = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like ROUTE=weight: " + entry);
+            }
+            total += Integer.parseInt(parts[1].trim());
+            parsedRoutes.add(Route.valueOf(parts[0].trim()));
+            weights.add(total);
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Mix weights must add up to more than 0: " + mix);
+        }
+        this.routes = parsedRoutes.toArray(new Route[0]);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public Outcome invoke(Random random) {
+        Route route = pick(random);
+        APIGatewayProxyResponseEvent response = api.getHandler().handleRequest(event(route, random), context);
+        return new Outcome(route.name(), response.getStatusCode() < 500 && response.getStatusCode() != 429);
+    }
+
+    private Route pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return routes[i];
+            }
+        }
+        return routes[routes.length - 1];
+    }
+
+    private APIGatewayProxyRequestEvent event(Route route, Random random) {
+        int table = 1 + random.nextInt(tables);
+        switch (route) {
+            case GET_TABLES:
+                return api.request("GET", "/tables", null);
+            case GET_TABLE_BY_ID:
+            case GET_TABLE_NOT_MODIFIED:
+                return api.request("GET", "/tables/" + table, null);
+            case POST_TABLE:
+                return api.request("POST", "/tables", "{\"id\": " + table + ", \"number\": " + table
+                        + ", \"places\": 4, \"isVip\": false, \"minOrder\": 1000}");
+            case GET_RESERVATIONS:
+                return api.request("GET", "/reservations", null)
+                        .withQueryStringParameters(Map.of("limit", "50"));
+            case GET_RESERVATIONS_BY_PHONE:
+                return api.request("GET", "/reservations", null)
+                        .withQueryStringParameters(Map.of("phoneNumber", String.format("+1555%07d", random.nextInt(100))));
+            case POST_RESERVATION:
+                return api.request("POST", "/reservations", reservation(table, random));
+            case POST_RESERVATION_BATCH:
+                return api.request("POST", "/reservations/batch", "{\"reservations\": [" + reservation(table, random) + ", "
+                        + reservation(1 + random.nextInt(tables), random) + "]}");
+            case POST_SIGNUP:
+                return api.anonymousRequest("POST", "/signup", credentials(random));
+            case POST_SIGNIN:
+                return api.anonymousRequest("POST", "/signin", credentials(random));
+            case INVALID_EMAIL:
+                return api.anonymousRequest("POST", "/signin", "{\"email\": \"not-an-email\", \"password\": \"Load-test-pass-1\"}");
+            case MISSING_TOKEN:
+                return api.anonymousRequest("GET", "/tables", null);
+            case UNKNOWN_PATH:
+                return api.request("GET", "/menu", null);
+            default:
+                throw new IllegalArgumentException("Unknown route: " + route);
+        }
+    }
+
+    private static String reservation(int table, Random random) {
+        int slot = random.nextInt(SLOTS.length - 1);
+        String date = String.format("2025-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28));
+        return BookingApi.reservationJson(table, date, SLOTS[slot], SLOTS[slot + 1]);
+    }
+
+    private static String credentials(Random random) {
+        return "{\"email\": \"guest" + random.nextInt(10_000) + "@example.com\", \"password\": \"Load-test-pass-1\"}";
+    }
+}
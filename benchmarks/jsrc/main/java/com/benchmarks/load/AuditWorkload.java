@@ -0,0 +1,87 @@
+package com.benchmarks.load;
+
+import com.benchmarks.FakeContext;
+import com.benchmarks.StubDynamoDbClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task06.AuditProducer;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@code com.task06.AuditProducer} fed DynamoDB stream batches of {@code batchSize} records from the
+ * Configuration table, serialised to the JSON its stream handler reads. Two thirds of
+ * the records are MODIFY events, the rest INSERTs.
+ */
+public class AuditWorkload implements Workload {
+
+    public static final String AUDIT_TABLE = "Audit";
+
+    private final AuditProducer producer;
+    private final int batchSize;
+    private final FakeContext context = new FakeContext();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AuditWorkload(int batchSize, Duration latency) {
+        this(batchSize, new StubDynamoDbClient(0, 0, latency));
+    }
+
+    /**
+     * Writing to the {@link #AUDIT_TABLE} table of {@code dynamoDbClient}.
+     */
+    public AuditWorkload(int batchSize, DynamoDbClient dynamoDbClient) {
+        this.producer = new AuditProducer(dynamoDbClient, AUDIT_TABLE);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Outcome invoke(Random random) {
+        List<Map<String, Object>> records = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            records.add(record(random));
+        }
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(64);
+            producer.handleRequest(new ByteArrayInputStream(objectMapper.writeValueAsBytes(Map.of("Records", records))),
+                    output, context);
+            return new Outcome("STREAM_BATCH", objectMapper.readTree(output.toByteArray()).path("batchItemFailures").isEmpty());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Object> record(Random random) {
+        String key = "CACHE_TTL_SEC_" + random.nextInt(100);
+        boolean insert = random.nextInt(3) == 0;
+
+        Map<String, Object> newImage = Map.of(
+                "key", Map.of("S", key),
+                "value", Map.of("N", String.valueOf(random.nextInt(10_000))));
+        Map<String, Object> dynamodb = new HashMap<>();
+        dynamodb.put("Keys", Map.of("key", Map.of("S", key)));
+        dynamodb.put("NewImage", newImage);
+        if (!insert) {
+            dynamodb.put("OldImage", Map.of(
+                    "key", Map.of("S", key),
+                    "value", Map.of("N", String.valueOf(random.nextInt(10_000)))));
+        }
+        dynamodb.put("SequenceNumber", Long.toString(random.nextLong() & Long.MAX_VALUE));
+        dynamodb.put("StreamViewType", "NEW_AND_OLD_IMAGES");
+
+        Map<String, Object> record = new HashMap<>();
+        record.put("eventID", Long.toHexString(random.nextLong()));
+        record.put("eventName", insert ? "INSERT" : "MODIFY");
+        record.put("eventSource", "aws:dynamodb");
+        record.put("dynamodb", dynamodb);
+        return record;
+    }
+}
@@ -0,0 +1,248 @@
+package com.benchmarks.load;
+
+import com.benchmarks.SampleData;
+import com.benchmarks.StubDynamoDbClient;
+import com.benchmarks.dynamodb.InMemoryDynamoDbClient;
+import com.task11.RateLimiter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-process load driver: {@code concurrency} workers, each with its own handler, send synthetic events
+ * for {@code warmup} + {@code duration} seconds and the latencies of the measured part are recorded in
+ * HdrHistograms, per operation and in total.
+ *
+ * <p>Without {@code --rate} every worker sends its next event as soon as the previous one returns (closed
+ * loop). With {@code --rate} the workers keep a fixed schedule and latency is measured from the scheduled
+ * start, so a stalled handler shows up in the percentiles instead of just lowering the throughput.
+ */
+public final class LoadDriver {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java -cp benchmarks.jar com.benchmarks.load.LoadDriver [options]",
+            "  --target api|audit|sqs   handler to drive (default api)",
+            "  --concurrency N          concurrent workers/handlers (default 4)",
+            "  --duration SECONDS       measured time (default 30)",
+            "  --warmup SECONDS         unmeasured time before it (default 10)",
+            "  --rate OPS               total target throughput; closed loop when omitted",
+            "  --mix ROUTE=W,...        api route weights (default " + ApiWorkload.DEFAULT_MIX + ")",
+            "  --tables N               tables known to the api stub (default 100)",
+            "  --batch-size N           records per audit/sqs event (default 50)",
+            "  --latency-ms N           simulated DynamoDB/Cognito latency per call (default 0)",
+            "  --store stub|memory      canned read-only DynamoDB items, or one in-memory store shared by",
+            "                           all workers that keeps writes (default stub)",
+            "  --throttle-rate R        fraction of in-memory store calls that are throttled (default 0)",
+            "  --rate-limit BURST/RATE  api rate limiter per worker, e.g. 20/10; unlimited when omitted");
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        String target = options.getOrDefault("target", "api");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        int tables = Integer.parseInt(options.getOrDefault("tables", "100"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "50"));
+        Duration latency = Duration.ofMillis(Long.parseLong(options.getOrDefault("latency-ms", "0")));
+        String mix = options.getOrDefault("mix", ApiWorkload.DEFAULT_MIX);
+        String store = options.getOrDefault("store", "stub");
+        double throttleRate = Double.parseDouble(options.getOrDefault("throttle-rate", "0"));
+        String rateLimit = options.get("rate-limit");
+        if (!store.equals("stub") && !store.equals("memory")) {
+            System.err.println("Unknown store: " + store);
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        InMemoryDynamoDbClient dynamoDbClient = store.equals("memory")
+                ? new InMemoryDynamoDbClient(latency, throttleRate, 1)
+                : null;
+
+        Callable<Workload> workloads;
+        switch (target) {
+            case "api":
+                if (dynamoDbClient != null) {
+                    SampleData.load(dynamoDbClient, tables, 1000);
+                }
+                workloads = () -> new ApiWorkload(mix, tables,
+                        dynamoDbClient != null ? dynamoDbClient : new StubDynamoDbClient(tables, 1000, latency),
+                        latency, rateLimiter(rateLimit));
+                break;
+            case "audit":
+                if (dynamoDbClient != null) {
+                    dynamoDbClient.createTable(AuditWorkload.AUDIT_TABLE, "id");
+                    workloads = () -> new AuditWorkload(batchSize, dynamoDbClient);
+                } else {
+                    workloads = () -> new AuditWorkload(batchSize, latency);
+                }
+                break;
+            case "sqs":
+                workloads = () -> new SqsWorkload(batchSize);
+                break;
+            default:
+                System.err.println("Unknown target: " + target);
+                System.err.println(USAGE);
+                System.exit(2);
+                return;
+        }
+
+        System.out.printf("Driving %s with %d workers for %ds after %ds of warm-up, %s%n", target, concurrency,
+                duration.toSeconds(), warmup.toSeconds(), rate > 0 ? "target " + rate + " ops/s" : "closed loop");
+        new LoadDriver().run(workloads, concurrency, warmup, duration, rate);
+        if (dynamoDbClient != null) {
+            System.out.printf("%nIn-memory store: %d calls throttled, warm-up included%n", dynamoDbClient.getThrottledCount());
+        }
+    }
+
+    private void run(Callable<Workload> workloads, int concurrency, Duration warmup, Duration duration,
+                     double rate) throws Exception {
+        // handlers are built up front so their init doesn't eat into the warm-up
+        List<Workload> workers = IntStream.range(0, concurrency)
+                .mapToObj(i -> create(workloads))
+                .collect(Collectors.toList());
+        long intervalNanos = rate > 0 ? (long) (1_000_000_000L * concurrency / rate) : 0;
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + warmup.toNanos();
+        long endAt = measureFrom + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = IntStream.range(0, concurrency)
+                    .mapToObj(i -> executor.submit(() -> drive(workers.get(i), new Random(i),
+                            startedAt + i * intervalNanos / concurrency, intervalNanos, measureFrom, endAt)))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report(duration);
+    }
+
+    private static Workload create(Callable<Workload> workloads) {
+        try {
+            return workloads.call();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create the workload", e);
+        }
+    }
+
+    private void drive(Workload workload, Random random, long firstAt, long intervalNanos, long measureFrom, long endAt) {
+        long scheduledAt = firstAt;
+        while (true) {
+            if (intervalNanos > 0) {
+                long wait = scheduledAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            long now = System.nanoTime();
+            if (now >= endAt) {
+                return;
+            }
+            long startedAt = intervalNanos > 0 ? scheduledAt : now;
+
+            String operation;
+            boolean success;
+            try {
+                Workload.Outcome outcome = workload.invoke(random);
+                operation = outcome.getOperation();
+                success = outcome.isSuccess();
+            } catch (Exception e) {
+                operation = "EXCEPTION";
+                success = false;
+            }
+            long latencyMicros = (System.nanoTime() - startedAt) / 1_000;
+
+            if (startedAt >= measureFrom) {
+                Stats operationStats = stats.computeIfAbsent(operation, name -> new Stats());
+                operationStats.recorder.recordValue(latencyMicros);
+                if (!success) {
+                    operationStats.errors.increment();
+                }
+            }
+            scheduledAt += intervalNanos;
+        }
+    }
+
+    private void report(Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        System.out.printf("%n%-28s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long errors = entry.getValue().errors.sum();
+            total.add(histogram);
+            totalErrors += errors;
+            printRow(entry.getKey(), histogram, errors, seconds);
+        }
+        printRow("TOTAL", total, totalErrors, seconds);
+    }
+
+    private static void printRow(String operation, Histogram histogram, long errors, double seconds) {
+        System.out.printf("%-28s %10d %10.1f %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                operation, histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static RateLimiter rateLimiter(String option) {
+        if (option == null) {
+            return RateLimiter.unlimited();
+        }
+        String[] parts = option.split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("--rate-limit looks like BURST/RATE, e.g. 20/10: " + option);
+        }
+        return new RateLimiter(Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
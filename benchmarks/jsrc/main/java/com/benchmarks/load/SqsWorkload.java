@@ -0,0 +1,43 @@
+package com.benchmarks.load;
+
+import com.benchmarks.FakeContext;
+import com.task04.SqsHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * {@code com.task04.SqsHandler} fed SQS batches of {@code batchSize} messages, in the map shape the
+ * Lambda runtime hands to an {@code Object} handler.
+ */
+public class SqsWorkload implements Workload {
+
+    private final SqsHandler handler = new SqsHandler();
+    private final int batchSize;
+    private final FakeContext context = new FakeContext();
+
+    public SqsWorkload(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Outcome invoke(Random random) {
+        List<Map<String, Object>> records = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            records.add(Map.of(
+                    "messageId", UUID.randomUUID().toString(),
+                    "receiptHandle", Long.toHexString(random.nextLong()),
+                    "body", "{\"message\": \"load test " + random.nextInt(1_000_000) + "\"}",
+                    "attributes", Map.of("ApproximateReceiveCount", "1", "SentTimestamp", String.valueOf(System.currentTimeMillis())),
+                    "messageAttributes", Map.of(),
+                    "eventSource", "aws:sqs",
+                    "eventSourceARN", "arn:aws:sqs:eu-central-1:000000000000:async_queue",
+                    "awsRegion", "eu-central-1"));
+        }
+        Map<String, Object> result = handler.handleRequest(Map.of("Records", records), context);
+        return new Outcome("SQS_BATCH", Integer.valueOf(200).equals(result.get("statusCode")));
+    }
+}
@@ -0,0 +1,33 @@
+package com.benchmarks.load;
+
+import java.util.Random;
+
+/**
+ * Source of synthetic events for one handler instance. Every load worker gets its own workload, and with it
+ * its own handler, the way each concurrent Lambda invocation gets its own execution environment.
+ */
+public interface Workload {
+
+    final class Outcome {
+        private final String operation;
+        private final boolean success;
+
+        public Outcome(String operation, boolean success) {
+            this.operation = operation;
+            this.success = success;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
+    /**
+     * Builds the next event, sends it through {@code handleRequest} and reports how it went.
+     */
+    Outcome invoke(Random random) throws Exception;
+}
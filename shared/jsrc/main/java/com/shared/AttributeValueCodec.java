@@ -0,0 +1,392 @@
+package com.shared;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversions between DynamoDB {@link AttributeValue}s and JSON, in two shapes:
+ * <ul>
+ *     <li>plain JSON documents, e.g. {@code {"limit": 5}}, read from and written to Jackson token streams, and
+ *     the same values as plain Java objects the way the Lambda runtime deserialises them;</li>
+ *     <li>typed DynamoDB JSON, e.g. {@code {"limit": {"N": "5"}}}, as in stream images, read from and written to
+ *     token streams and read from the runtime's map form of an image.</li>
+ * </ul>
+ *
+ * <p>Values go straight from tokens to attribute values without a {@code JsonNode} tree in between. Numbers
+ * keep the text they were written with, so {@code N} values of any precision survive a round trip unchanged;
+ * decoded binary values are wrapped, not copied. Plain JSON has no sets or binary values: sets are written as
+ * arrays and binary values as base64 strings, and read back as lists and strings.
+ */
+public final class AttributeValueCodec {
+
+    private static final AttributeValue NULL = AttributeValue.builder().nul(true).build();
+
+    private AttributeValueCodec() {
+    }
+
+    /**
+     * The plain JSON value the parser is at; call after {@code nextToken()}.
+     */
+    public static AttributeValue readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new IOException("No JSON value to read");
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return AttributeValue.fromS(parser.getText());
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return AttributeValue.fromN(parser.getText());
+            case VALUE_TRUE:
+                return AttributeValue.fromBool(true);
+            case VALUE_FALSE:
+                return AttributeValue.fromBool(false);
+            case VALUE_NULL:
+                return NULL;
+            case START_ARRAY:
+                List<AttributeValue> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                return AttributeValue.fromL(list);
+            case START_OBJECT:
+                return AttributeValue.fromM(readFields(parser));
+            default:
+                throw new IOException("Unexpected " + token);
+        }
+    }
+
+    /**
+     * The plain JSON object the parser is at as an item; call after {@code nextToken()}.
+     */
+    public static Map<String, AttributeValue> readItem(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT);
+        return readFields(parser);
+    }
+
+    private static Map<String, AttributeValue> readFields(JsonParser parser) throws IOException {
+        Map<String, AttributeValue> item = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            item.put(name, readValue(parser));
+        }
+        return item;
+    }
+
+    public static void writeValue(AttributeValue value, JsonGenerator generator) throws IOException {
+        switch (value.type()) {
+            case S:
+                generator.writeString(value.s());
+                return;
+            case N:
+                generator.writeNumber(value.n());
+                return;
+            case B:
+                generator.writeBinary(value.b().asByteArrayUnsafe());
+                return;
+            case BOOL:
+                generator.writeBoolean(value.bool());
+                return;
+            case NUL:
+                generator.writeNull();
+                return;
+            case SS:
+                generator.writeStartArray();
+                for (String element : value.ss()) {
+                    generator.writeString(element);
+                }
+                generator.writeEndArray();
+                return;
+            case NS:
+                generator.writeStartArray();
+                for (String element : value.ns()) {
+                    generator.writeNumber(element);
+                }
+                generator.writeEndArray();
+                return;
+            case BS:
+                generator.writeStartArray();
+                for (SdkBytes element : value.bs()) {
+                    generator.writeBinary(element.asByteArrayUnsafe());
+                }
+                generator.writeEndArray();
+                return;
+            case L:
+                generator.writeStartArray();
+                for (AttributeValue element : value.l()) {
+                    writeValue(element, generator);
+                }
+                generator.writeEndArray();
+                return;
+            case M:
+                writeItem(value.m(), generator);
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported attribute value " + value);
+        }
+    }
+
+    public static void writeItem(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            writeValue(attribute.getValue(), generator);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * A plain Java value as the Lambda runtime deserialises JSON: strings, numbers, booleans, {@code null},
+     * maps and lists.
+     */
+    public static AttributeValue toAttributeValue(Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof String) {
+            return AttributeValue.fromS((String) value);
+        } else if (value instanceof BigDecimal) {
+            return AttributeValue.fromN(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number) {
+            return AttributeValue.fromN(value.toString());
+        } else if (value instanceof Boolean) {
+            return AttributeValue.fromBool((Boolean) value);
+        } else if (value instanceof Map) {
+            return AttributeValue.fromM(fields((Map<?, ?>) value));
+        } else if (value instanceof List) {
+            List<?> elements = (List<?>) value;
+            List<AttributeValue> list = new ArrayList<>(elements.size());
+            for (Object element : elements) {
+                list.add(toAttributeValue(element));
+            }
+            return AttributeValue.fromL(list);
+        }
+        throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+    }
+
+    public static Map<String, AttributeValue> toItem(Map<?, ?> map) {
+        return fields(map);
+    }
+
+    private static Map<String, AttributeValue> fields(Map<?, ?> map) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            item.put((String) entry.getKey(), toAttributeValue(entry.getValue()));
+        }
+        return item;
+    }
+
+    /**
+     * The typed attribute value object the parser is at, e.g. {@code {"N": "5"}}; call after
+     * {@code nextToken()}. Binary values are base64.
+     */
+    public static AttributeValue readTypedValue(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT);
+        expect(parser.nextToken(), JsonToken.FIELD_NAME);
+        String type = parser.currentName();
+        parser.nextToken();
+        AttributeValue value;
+        switch (type) {
+            case "S":
+                value = AttributeValue.fromS(parser.getText());
+                break;
+            case "N":
+                value = AttributeValue.fromN(parser.getText());
+                break;
+            case "B":
+                value = AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(parser.getBinaryValue()));
+                break;
+            case "BOOL":
+                value = AttributeValue.fromBool(parser.getBooleanValue());
+                break;
+            case "NULL":
+                value = NULL;
+                break;
+            case "SS":
+            case "NS":
+                List<String> strings = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    strings.add(parser.getText());
+                }
+                value = "SS".equals(type) ? AttributeValue.fromSs(strings) : AttributeValue.fromNs(strings);
+                break;
+            case "BS":
+                List<SdkBytes> bytes = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    bytes.add(SdkBytes.fromByteArrayUnsafe(parser.getBinaryValue()));
+                }
+                value = AttributeValue.fromBs(bytes);
+                break;
+            case "M":
+                value = AttributeValue.fromM(readTypedItem(parser));
+                break;
+            case "L":
+                List<AttributeValue> list = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    list.add(readTypedValue(parser));
+                }
+                value = AttributeValue.fromL(list);
+                break;
+            default:
+                throw new IOException("Unsupported attribute type " + type);
+        }
+        expect(parser.nextToken(), JsonToken.END_OBJECT);
+        return value;
+    }
+
+    /**
+     * The typed item the parser is at, e.g. a stream image; call after {@code nextToken()}.
+     */
+    public static Map<String, AttributeValue> readTypedItem(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT);
+        Map<String, AttributeValue> item = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            item.put(name, readTypedValue(parser));
+        }
+        return item;
+    }
+
+    public static void writeTypedValue(AttributeValue value, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        switch (value.type()) {
+            case S:
+                generator.writeStringField("S", value.s());
+                break;
+            case N:
+                generator.writeStringField("N", value.n());
+                break;
+            case B:
+                generator.writeFieldName("B");
+                generator.writeBinary(value.b().asByteArrayUnsafe());
+                break;
+            case BOOL:
+                generator.writeBooleanField("BOOL", value.bool());
+                break;
+            case NUL:
+                generator.writeBooleanField("NULL", true);
+                break;
+            case SS:
+            case NS:
+                generator.writeArrayFieldStart(value.type() == AttributeValue.Type.SS ? "SS" : "NS");
+                for (String element : value.type() == AttributeValue.Type.SS ? value.ss() : value.ns()) {
+                    generator.writeString(element);
+                }
+                generator.writeEndArray();
+                break;
+            case BS:
+                generator.writeArrayFieldStart("BS");
+                for (SdkBytes element : value.bs()) {
+                    generator.writeBinary(element.asByteArrayUnsafe());
+                }
+                generator.writeEndArray();
+                break;
+            case L:
+                generator.writeArrayFieldStart("L");
+                for (AttributeValue element : value.l()) {
+                    writeTypedValue(element, generator);
+                }
+                generator.writeEndArray();
+                break;
+            case M:
+                generator.writeFieldName("M");
+                writeTypedItem(value.m(), generator);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported attribute value " + value);
+        }
+        generator.writeEndObject();
+    }
+
+    public static void writeTypedItem(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            writeTypedValue(attribute.getValue(), generator);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * A typed attribute value in the map form the Lambda runtime deserialises a stream image into, e.g.
+     * {@code {"N": "5"}} with binary values as base64 strings.
+     */
+    public static AttributeValue fromTypedValue(Map<?, ?> value) {
+        if (value.size() != 1) {
+            throw new IllegalArgumentException("An attribute value has exactly one type: " + value.keySet());
+        }
+        Map.Entry<?, ?> typed = value.entrySet().iterator().next();
+        switch ((String) typed.getKey()) {
+            case "S":
+                return AttributeValue.fromS((String) typed.getValue());
+            case "N":
+                return AttributeValue.fromN((String) typed.getValue());
+            case "B":
+                return AttributeValue.fromB(base64(typed.getValue()));
+            case "BOOL":
+                return AttributeValue.fromBool((Boolean) typed.getValue());
+            case "NULL":
+                return NULL;
+            case "SS":
+                return AttributeValue.fromSs(strings(typed.getValue()));
+            case "NS":
+                return AttributeValue.fromNs(strings(typed.getValue()));
+            case "BS":
+                List<SdkBytes> bytes = new ArrayList<>();
+                for (Object element : (List<?>) typed.getValue()) {
+                    bytes.add(base64(element));
+                }
+                return AttributeValue.fromBs(bytes);
+            case "M":
+                return AttributeValue.fromM(fromTypedItem((Map<?, ?>) typed.getValue()));
+            case "L":
+                List<AttributeValue> list = new ArrayList<>();
+                for (Object element : (List<?>) typed.getValue()) {
+                    list.add(fromTypedValue((Map<?, ?>) element));
+                }
+                return AttributeValue.fromL(list);
+            default:
+                throw new IllegalArgumentException("Unsupported attribute type " + typed.getKey());
+        }
+    }
+
+    public static Map<String, AttributeValue> fromTypedItem(Map<?, ?> item) {
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        for (Map.Entry<?, ?> attribute : item.entrySet()) {
+            attributes.put((String) attribute.getKey(), fromTypedValue((Map<?, ?>) attribute.getValue()));
+        }
+        return attributes;
+    }
+
+    private static List<String> strings(Object value) {
+        List<?> elements = (List<?>) value;
+        List<String> strings = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            strings.add((String) element);
+        }
+        return strings;
+    }
+
+    private static SdkBytes base64(Object value) {
+        return SdkBytes.fromByteArrayUnsafe(Base64.getDecoder().decode((String) value));
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.shared;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered record IDs (UUID version 7, RFC 9562) for the handlers' writes.
+ *
+ * <p>The first 48 bits are the Unix time in milliseconds, followed by a 12-bit counter and 62 random
+ * bits, so IDs sort by creation time both as {@link UUID}s and as their lower-case strings; {@link #lowerBound}
+ * and {@link #upperBound} give the string range for a time window. The counter and the last timestamp
+ * are kept per thread and the random bits come from {@link ThreadLocalRandom}, so generating an ID takes
+ * no lock, unlike {@link UUID#randomUUID()} and its shared {@code SecureRandom}. IDs from one thread are
+ * strictly increasing; IDs from different threads within the same millisecond are not ordered among each
+ * other. They are unique, not unguessable: don't use them as secrets.
+ *
+ * <p>{@link ThreadLocalRandom} state is part of a SnapStart/CRaC snapshot, so every instance restored from it
+ * would draw the same "random" bits. The random bits are therefore mixed with a per-thread salt from
+ * {@link SecureRandom}, drawn when a thread first generates an ID and again after every restore.
+ */
+public final class Ids {
+
+    private static final int COUNTER_BITS = 12;
+    private static final int COUNTER_MAX = (1 << COUNTER_BITS) - 1;
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private static final ThreadLocal<Ids> STATE = ThreadLocal.withInitial(Ids::new);
+    private static final SecureRandom SALTS = new SecureRandom();
+
+    private static volatile int restores;
+
+    // The CRaC context only keeps a weak reference; this field keeps the strong one.
+    private static final Resource RESTORE_HOOK = new Resource() {
+        @Override
+        public void beforeCheckpoint(Context<? extends Resource> context) {
+        }
+
+        @Override
+        public void afterRestore(Context<? extends Resource> context) {
+            // called once per restore, from a single thread
+            restores++;
+        }
+    };
+
+    static {
+        Core.getGlobalContext().register(RESTORE_HOOK);
+    }
+
+    private long lastMillis;
+    private int counter;
+    private int saltedAt = -1;
+    private long salt;
+
+    private Ids() {
+    }
+
+    public static UUID uuidV7() {
+        return STATE.get().next(System.currentTimeMillis());
+    }
+
+    /**
+     * {@link #uuidV7()} as a string, the form the tables store.
+     */
+    public static String next() {
+        return uuidV7().toString();
+    }
+
+    /**
+     * Creation time encoded in a version 7 ID.
+     */
+    public static Instant timestamp(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+    /**
+     * Smallest ID string created at or after {@code time}.
+     */
+    public static String lowerBound(Instant time) {
+        return new UUID(time.toEpochMilli() << 16 | VERSION, VARIANT).toString();
+    }
+
+    /**
+     * Largest ID string created at or before {@code time}.
+     */
+    public static String upperBound(Instant time) {
+        return new UUID(time.toEpochMilli() << 16 | VERSION | COUNTER_MAX, VARIANT | VARIANT_MASK).toString();
+    }
+
+    private UUID next(long millis) {
+        int restore = restores;
+        if (saltedAt != restore) {
+            saltedAt = restore;
+            salt = SALTS.nextLong();
+        }
+        if (millis > lastMillis) {
+            lastMillis = millis;
+            // start low in the counter range so a burst within one millisecond rarely overflows it
+            counter = ThreadLocalRandom.current().nextInt(1 << (COUNTER_BITS - 1));
+        } else if (counter < COUNTER_MAX) {
+            // same millisecond, or the clock went back: stay on the last timestamp and count up
+            counter++;
+        } else {
+            // counter exhausted: borrow the next millisecond to stay monotonic
+            lastMillis++;
+            counter = 0;
+        }
+        long mostSignificant = lastMillis << 16 | VERSION | counter;
+        long leastSignificant = (ThreadLocalRandom.current().nextLong() ^ salt) & VARIANT_MASK | VARIANT;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
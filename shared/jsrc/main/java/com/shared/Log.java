@@ -0,0 +1,259 @@
+package com.shared;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Leveled logger shared by all handlers.
+ *
+ * <p>The threshold comes from the {@code LOG_LEVEL} environment variable (default {@code INFO}).
+ * Messages are {@code {}} templates whose arguments are only formatted when the level is enabled, so a
+ * disabled call costs a field compare. {@code sampledDebug} is meant for per-item lines and logs only a
+ * {@code LOG_SAMPLE_RATE} fraction of calls (default 0.01). Bearer tokens, JWTs and password/token
+ * fields are masked in every line that is written.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    @FunctionalInterface
+    public interface Sink {
+        void write(String line);
+    }
+
+    private static final Level DEFAULT_LEVEL = parseLevel(System.getenv("LOG_LEVEL"));
+    private static final double DEFAULT_SAMPLE_RATE = parseSampleRate(System.getenv("LOG_SAMPLE_RATE"));
+    private static final Sink LAMBDA_SINK = line -> LambdaRuntime.getLogger().log(line + "\n");
+
+    private static final Pattern SECRETS = Pattern.compile(
+            "(Bearer\\s+)[^\\s\",}]+"
+                    + "|eyJ[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*"
+                    + "|((?:password|accessToken|idToken|refreshToken|authorization)\"?\\s*[:=]\\s*\"?(?:Bearer\\s+)?)[^\\s\",}]+",
+            Pattern.CASE_INSENSITIVE);
+    private static final String MASK = "***";
+
+    private final String name;
+    private final Level threshold;
+    private final double sampleRate;
+    private final Sink sink;
+
+    public Log(String name, Level threshold, double sampleRate, Sink sink) {
+        this.name = name;
+        this.threshold = threshold;
+        this.sampleRate = sampleRate;
+        this.sink = sink;
+    }
+
+    public static Log get(Class<?> type) {
+        return new Log(type.getSimpleName(), DEFAULT_LEVEL, DEFAULT_SAMPLE_RATE, LAMBDA_SINK);
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message, null);
+        }
+    }
+
+    public void debug(String template, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, format(template, arg, null, null), null);
+        }
+    }
+
+    public void debug(String template, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, format(template, arg1, arg2, null), null);
+        }
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    /**
+     * Debug line for hot loops: written for roughly {@code sampleRate} of the calls.
+     */
+    public void sampledDebug(String template, Object arg) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            write(Level.DEBUG, format(template, arg, null, null), null);
+        }
+    }
+
+    public void sampledDebug(String template, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            write(Level.DEBUG, format(template, arg1, arg2, null), null);
+        }
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, message, null);
+        }
+    }
+
+    public void info(String template, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, format(template, arg, null, null), null);
+        }
+    }
+
+    public void info(String template, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, format(template, arg1, arg2, null), null);
+        }
+    }
+
+    public void info(String template, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, format(template, arg1, arg2, arg3), null);
+        }
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, message, null);
+        }
+    }
+
+    public void warn(String template, Object arg) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(template, arg, null, null), null);
+        }
+    }
+
+    public void warn(String template, Object arg1, Object arg2) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(template, arg1, arg2, null), null);
+        }
+    }
+
+    public void warn(String message, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, message, error);
+        }
+    }
+
+    public void warn(String template, Object arg, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(template, arg, null, null), error);
+        }
+    }
+
+    public void warn(String template, Object arg1, Object arg2, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(template, arg1, arg2, null), error);
+        }
+    }
+
+    public void error(String message) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, message, null);
+        }
+    }
+
+    public void error(String template, Object arg) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, format(template, arg, null, null), null);
+        }
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, message, error);
+        }
+    }
+
+    public void error(String template, Object arg, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, format(template, arg, null, null), error);
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void write(Level level, String message, Throwable error) {
+        StringBuilder line = new StringBuilder(message.length() + name.length() + 16)
+                .append('[').append(level).append("] ").append(name).append(" - ").append(message);
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            line.append('\n').append(trace);
+        }
+        sink.write(redact(line.toString()));
+    }
+
+    static String format(String template, Object arg1, Object arg2, Object arg3) {
+        StringBuilder out = new StringBuilder(template.length() + 32);
+        int argIndex = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0) {
+            out.append(template, from, at);
+            Object arg = argIndex == 0 ? arg1 : argIndex == 1 ? arg2 : arg3;
+            out.append(argIndex < 3 ? String.valueOf(arg) : "{}");
+            argIndex++;
+            from = at + 2;
+        }
+        return out.append(template, from, template.length()).toString();
+    }
+
+    public static String redact(String line) {
+        Matcher matcher = SECRETS.matcher(line);
+        if (!matcher.find()) {
+            return line;
+        }
+        StringBuilder out = new StringBuilder(line.length());
+        int from = 0;
+        do {
+            out.append(line, from, matcher.start());
+            String prefix = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            if (prefix != null) {
+                out.append(prefix);
+            }
+            out.append(MASK);
+            from = matcher.end();
+        } while (matcher.find());
+        return out.append(line, from, line.length()).toString();
+    }
+
+    private static Level parseLevel(String value) {
+        if (value == null || value.isBlank()) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    private static double parseSampleRate(String value) {
+        if (value == null || value.isBlank()) {
+            return 0.01;
+        }
+        try {
+            return Math.max(0, Math.min(1, Double.parseDouble(value.trim())));
+        } catch (NumberFormatException e) {
+            return 0.01;
+        }
+    }
+}
@@ -2,10 +2,10 @@ package com.task04;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.shared.Log;
 import com.syndicate.deployment.annotations.events.SnsEventSource;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
 import com.syndicate.deployment.model.RetentionSetting;
-import com.amazonaws.services.lambda.runtime.LambdaLogger;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,9 +20,10 @@ import java.util.Map;
 @SnsEventSource(targetTopic = "lambda_topic")
 public class SnsHandler implements RequestHandler<Object, Map<String, Object>> {
 
+    private static final Log LOG = Log.get(SnsHandler.class);
+
     public Map<String, Object> handleRequest(Object request, Context context) {
-        context.getLogger().log("Received Sns message: " + request.toString());
-        System.out.println("Received Sns message: " + request.toString());
+        LOG.info("Received Sns message: {}", request);
 
         Map<String, Object> resultMap = new HashMap<String, Object>();
         resultMap.put("statusCode", 200);
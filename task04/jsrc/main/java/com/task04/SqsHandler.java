@@ -2,10 +2,10 @@ package com.task04;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.shared.Log;
 import com.syndicate.deployment.annotations.events.SqsTriggerEventSource;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
 import com.syndicate.deployment.model.RetentionSetting;
-import com.amazonaws.services.lambda.runtime.LambdaLogger;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,9 +20,10 @@ import java.util.Map;
 @SqsTriggerEventSource(targetQueue = "async_queue", batchSize = 123)
 public class SqsHandler implements RequestHandler<Object, Map<String, Object>> {
 
+	private static final Log LOG = Log.get(SqsHandler.class);
+
 	public Map<String, Object> handleRequest(Object request, Context context) {
-		context.getLogger().log("Received SQS message: " + request.toString());
-		System.out.println("Received SQS message: " + request.toString()); // Ensure logs appear in CloudWatch
+		LOG.info("Received SQS message: {}", request);
 
 		Map<String, Object> resultMap = new HashMap<>();
 		resultMap.put("statusCode", 200);
@@ -2,6 +2,9 @@ package com.task05;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.shared.AttributeValueCodec;
+import com.shared.Ids;
+import com.shared.Log;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariable;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariables;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
@@ -12,12 +15,9 @@ import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @LambdaHandler(
         lambdaName = "api_handler",
@@ -33,36 +33,42 @@ import java.util.UUID;
 })
 public class ApiHandler implements RequestHandler<Map<String, Object>, Map<String, Object>> {
 
-    private static final String TABLE_NAME = System.getenv("table");
+    private static final Log LOG = Log.get(ApiHandler.class);
     private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
 
     public ApiHandler() {
-        this.dynamoDbClient = DynamoDbClient.builder()
+        this(DynamoDbClient.builder()
                 .region(Region.of(System.getenv("region")))
                 .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .build(), System.getenv("table"));
+    }
+
+    public ApiHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
     }
 
     @Override
     public Map<String, Object> handleRequest(Map<String, Object> input, Context context) {
 
         try {
-            context.getLogger().log("Received request: " + input);
+            LOG.debug("Received request: {}", input);
 
             int principalId = ((Number) input.get("principalId")).intValue();
-            Map<String, String> content = (Map<String, String>) input.get("content");
+            Map<?, ?> content = (Map<?, ?>) input.get("content");
 
-            String eventId = UUID.randomUUID().toString();
+            String eventId = Ids.next();
             String createdAt = Instant.now().toString();
 
             Map<String, AttributeValue> item = new HashMap<>();
             item.put("id", AttributeValue.builder().s(eventId).build());
             item.put("principalId", AttributeValue.builder().n(String.valueOf(principalId)).build());
             item.put("createdAt", AttributeValue.builder().s(createdAt).build());
-            item.put("body", AttributeValue.builder().m(convertMapToAttributeValue(content)).build());
+            item.put("body", AttributeValue.builder().m(AttributeValueCodec.toItem(content)).build());
 
             PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName(TABLE_NAME)
+                    .tableName(tableName)
                     .item(item)
                     .build();
             dynamoDbClient.putItem(putItemRequest);
@@ -79,19 +85,9 @@ public class ApiHandler implements RequestHandler<Map<String, Object>, Map<Strin
 
             return response;
         } catch (Exception e) {
-            StringWriter sw = new StringWriter();
-            e.printStackTrace(new PrintWriter(sw));
-            context.getLogger().log("Error: " + sw);
+            LOG.error("Error storing event", e);
             return Map.of("statusCode", 500, "message", "Internal Server Error");
         }
     }
 
-    private Map<String, AttributeValue> convertMapToAttributeValue(Map<String, String> map) {
-        Map<String, AttributeValue> attributeValueMap = new HashMap<>();
-        for (Map.Entry<String, String> entry : map.entrySet()) {
-            attributeValueMap.put(entry.getKey(), AttributeValue.builder().s(entry.getValue()).build());
-        }
-        return attributeValueMap;
-    }
-
 }
@@ -1,20 +1,42 @@
 package com.task06;
 
 import com.amazonaws.services.lambda.runtime.Context;
-import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.shared.Ids;
+import com.shared.Log;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariable;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariables;
 import com.syndicate.deployment.annotations.events.DynamoDbTriggerEventSource;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
 import com.syndicate.deployment.model.RetentionSetting;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Writes an audit entry for every change in a Configuration stream batch. Failures are reported per record:
+ * the response names the sequence number of the first record that wasn't audited, and the event source
+ * mapping (with {@code ReportBatchItemFailures} enabled) retries the batch from there.
+ *
+ * <p>Lambda invokes the stream variant, which decodes the event with {@link StreamEventDecoder} instead of
+ * having the runtime build it as nested maps first; the map variant takes an event in that map form.
+ */
 @LambdaHandler(
 		lambdaName = "audit_producer",
 		roleName = "audit_producer-role",
@@ -30,134 +52,297 @@ import java.util.*;
 		targetTable = "Configuration",
 		batchSize = 50
 )
-public class AuditProducer implements RequestHandler<Map<String, Object>, Map<String, Object>> {
+public class AuditProducer implements RequestStreamHandler {
 
-	private static final String AUDIT_TABLE = System.getenv("table");
+	public static final int MAX_BATCH_ITEMS = 25;
+	public static final int DEFAULT_CONCURRENT_BATCHES = 4;
+
+	private static final int MAX_ATTEMPTS = 8;
+	private static final long BASE_BACKOFF_MILLIS = 25;
+	private static final long MAX_BACKOFF_MILLIS = 1000;
+
+	private static final Log LOG = Log.get(AuditProducer.class);
 	private final DynamoDbClient dynamoDbClient;
+	private final String auditTable;
+	private final int batchItems;
+	private final ExecutorService batchExecutor;
 
 	public AuditProducer() {
-		this.dynamoDbClient = DynamoDbClient.builder()
+		this(DynamoDbClient.builder()
 				.region(Region.of(System.getenv("region")))
 				.credentialsProvider(DefaultCredentialsProvider.create())
-				.build();
+				.build(), System.getenv("table"));
+	}
+
+	public AuditProducer(DynamoDbClient dynamoDbClient, String auditTable) {
+		this(dynamoDbClient, auditTable, MAX_BATCH_ITEMS, DEFAULT_CONCURRENT_BATCHES);
+	}
+
+	/**
+	 * Writes audit entries in BatchWriteItem calls of up to {@code batchItems} entries, at most
+	 * {@code concurrentBatches} of them in flight at once. One item and one batch at a time is the
+	 * round-trip-per-record behaviour of a putItem loop.
+	 */
+	public AuditProducer(DynamoDbClient dynamoDbClient, String auditTable, int batchItems, int concurrentBatches) {
+		if (batchItems < 1 || batchItems > MAX_BATCH_ITEMS) {
+			throw new IllegalArgumentException("batchItems must be between 1 and " + MAX_BATCH_ITEMS);
+		}
+		this.dynamoDbClient = dynamoDbClient;
+		this.auditTable = auditTable;
+		this.batchItems = batchItems;
+		this.batchExecutor = concurrentBatches > 1 ? Executors.newFixedThreadPool(concurrentBatches, runnable -> {
+			Thread thread = new Thread(runnable, "audit-batch-writer");
+			thread.setDaemon(true);
+			return thread;
+		}) : null;
 	}
 
 	@Override
-	public Map<String, Object> handleRequest(Map<String, Object> input, Context context) {
-		try {
-			context.getLogger().log("[INFO] Received event: " + input);
+	public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+		StreamsEventResponse response = audit(StreamEventDecoder.decode(input));
+		try (JsonGenerator generator = StreamEventDecoder.jsonFactory().createGenerator(output)) {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("batchItemFailures");
+			for (StreamsEventResponse.BatchItemFailure failure : response.getBatchItemFailures()) {
+				generator.writeStartObject();
+				generator.writeStringField("itemIdentifier", failure.getItemIdentifier());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+	}
+
+	public StreamsEventResponse handleRequest(Map<String, Object> input, Context context) {
+		LOG.debug("Received event: {}", input);
 
-			List<Map<String, Object>> records = (List<Map<String, Object>>) input.get("Records");
-			if (records == null || records.isEmpty()) {
-				context.getLogger().log("[WARNING] No records found in the event.");
-				return Map.of("statusCode", 400, "message", "No records found");
+		List<?> records = (List<?>) input.get("Records");
+		List<StreamRecord> streamRecords = new ArrayList<>(records == null ? 0 : records.size());
+		if (records != null) {
+			for (Object record : records) {
+				streamRecords.add(StreamRecord.fromMap((Map<?, ?>) record));
 			}
+		}
+		return audit(streamRecords);
+	}
 
-			for (Map<String, Object> record : records) {
-				context.getLogger().log("[INFO] Processing record: " + record);
+	private StreamsEventResponse audit(List<StreamRecord> records) {
+		if (records.isEmpty()) {
+			LOG.warn("No records found in the event.");
+			return new StreamsEventResponse(List.of());
+		}
 
-				String eventType = (String) record.get("eventName");
-				Map<String, Object> dynamodb = (Map<String, Object>) record.get("dynamodb");
-				if (dynamodb == null) {
-					context.getLogger().log("[WARNING] Skipping record, missing 'dynamodb' field.");
-					continue;
+		LOG.info("Processing {} records", records.size());
+		List<WriteRequest> writes = new ArrayList<>(records.size());
+		List<Integer> writeRecords = new ArrayList<>(records.size());
+		int firstFailed = records.size();
+		for (int i = 0; i < records.size(); i++) {
+			StreamRecord record = records.get(i);
+			LOG.sampledDebug("Processing record: {}", record.getSequenceNumber());
+			try {
+				for (Map<String, AttributeValue> auditEntry : auditEntries(record)) {
+					writes.add(WriteRequest.builder()
+							.putRequest(PutRequest.builder().item(auditEntry).build())
+							.build());
+					writeRecords.add(i);
 				}
+			} catch (RuntimeException e) {
+				// the stream retries from this record on, so the ones after it don't need writing now
+				LOG.error("Failed to process record {}", record.getSequenceNumber(), e);
+				firstFailed = i;
+				break;
+			}
+		}
 
-				Map<String, Object> keys = (Map<String, Object>) dynamodb.get("Keys");
-				Map<String, Object> newImage = (Map<String, Object>) dynamodb.get("NewImage");
-				Map<String, Object> oldImage = (Map<String, Object>) dynamodb.get("OldImage");
+		// Save to DynamoDB
+		int firstUnwritten = writeAll(writes);
+		if (firstUnwritten >= 0) {
+			firstFailed = Math.min(firstFailed, writeRecords.get(firstUnwritten));
+		}
+		if (firstFailed == records.size()) {
+			LOG.debug("Saved {} audit records", writes.size());
+			return new StreamsEventResponse(List.of());
+		}
 
-				if (keys == null || !keys.containsKey("key")) {
-					context.getLogger().log("[ERROR] Skipping record, missing 'key' field.");
-					continue;
-				}
+		String sequenceNumber = records.get(firstFailed).getSequenceNumber();
+		LOG.warn("Reporting record {} as failed, sequence number {}", firstFailed, sequenceNumber);
+		return new StreamsEventResponse(List.of(new StreamsEventResponse.BatchItemFailure(sequenceNumber)));
+	}
+
+	/**
+	 * The audit entries for a stream record: one for an insert, one per changed attribute path for a
+	 * modification, none for a record that has nothing to audit.
+	 */
+	private List<Map<String, AttributeValue>> auditEntries(StreamRecord record) {
+		if (record.getError() != null) {
+			throw record.getError();
+		}
+		String eventType = record.getEventName();
+		Map<String, AttributeValue> keys = record.getKeys();
+		Map<String, AttributeValue> newImage = record.getNewImage();
+		Map<String, AttributeValue> oldImage = record.getOldImage();
+
+		if (keys == null || !keys.containsKey("key")) {
+			LOG.error("Skipping record, missing 'key' field.");
+			return List.of();
+		}
+
+		String itemKey = keys.get("key").s();
+		String modificationTime = Instant.now().toString();
 
-				String itemKey = extractStringValue(keys.get("key"));
-				String modificationTime = Instant.now().toString();
-
-				// Construct audit entry
-				Map<String, AttributeValue> auditEntry = new HashMap<>();
-				auditEntry.put("id", AttributeValue.builder().s(UUID.randomUUID().toString()).build());
-				auditEntry.put("itemKey", AttributeValue.builder().s(itemKey).build());
-				auditEntry.put("modificationTime", AttributeValue.builder().s(modificationTime).build());
-
-				if ("INSERT".equals(eventType)) {
-					// New Configuration Item Created
-					Map<String, AttributeValue> formattedNewValue = formatConfigItem(newImage);
-					auditEntry.put("newValue", AttributeValue.builder().m(formattedNewValue).build());
-				} else if ("MODIFY".equals(eventType)) {
-					// Configuration Item Updated
-					if (newImage != null && oldImage != null && newImage.containsKey("value") && oldImage.containsKey("value")) {
-						Object oldVal = extractSingleValue(oldImage.get("value"));
-						Object newVal = extractSingleValue(newImage.get("value"));
-
-						if (!Objects.equals(oldVal, newVal)) {
-							auditEntry.put("updatedAttribute", AttributeValue.builder().s("value").build());
-							auditEntry.put("oldValue", formatAttributeValue(oldVal));
-							auditEntry.put("newValue", formatAttributeValue(newVal));
-						}
+		if ("MODIFY".equals(eventType) && newImage != null && oldImage != null) {
+			// Configuration Item Updated
+			List<ImageDiff.Change> changes = ImageDiff.diff(oldImage, newImage);
+			if (!changes.isEmpty()) {
+				List<Map<String, AttributeValue>> auditEntries = new ArrayList<>(changes.size());
+				for (ImageDiff.Change change : changes) {
+					Map<String, AttributeValue> auditEntry = auditEntry(record, itemKey, change.getPath(), modificationTime);
+					auditEntry.put("updatedAttribute", AttributeValue.builder().s(change.getPath()).build());
+					if (change.getOldValue() != null) {
+						auditEntry.put("oldValue", change.getOldValue());
 					}
+					if (change.getNewValue() != null) {
+						auditEntry.put("newValue", change.getNewValue());
+					}
+					auditEntries.add(auditEntry);
 				}
+				return auditEntries;
+			}
+		}
 
-				// Save to DynamoDB
-				PutItemRequest putItemRequest = PutItemRequest.builder()
-						.tableName(AUDIT_TABLE)
-						.item(auditEntry)
-						.build();
+		Map<String, AttributeValue> auditEntry = auditEntry(record, itemKey, "", modificationTime);
+		if ("INSERT".equals(eventType)) {
+			// New Configuration Item Created
+			auditEntry.put("newValue", AttributeValue.builder().m(newImage != null ? newImage : Map.of()).build());
+		}
+		return List.of(auditEntry);
+	}
 
-				dynamoDbClient.putItem(putItemRequest);
-				context.getLogger().log("[SUCCESS] Saved audit record for key: " + itemKey);
-			}
+	private static Map<String, AttributeValue> auditEntry(StreamRecord record, String itemKey, String path, String modificationTime) {
+		Map<String, AttributeValue> auditEntry = new HashMap<>();
+		auditEntry.put("id", AttributeValue.builder().s(entryId(record, itemKey, path)).build());
+		auditEntry.put("itemKey", AttributeValue.builder().s(itemKey).build());
+		auditEntry.put("modificationTime", AttributeValue.builder().s(modificationTime).build());
+		return auditEntry;
+	}
 
-			return Map.of("statusCode", 200, "message", "Audit logs processed successfully");
-		} catch (Exception e) {
-			context.getLogger().log("[ERROR] Exception occurred: " + e.getMessage());
-			return Map.of("statusCode", 500, "message", "Internal Server Error");
+	/**
+	 * Name-based UUID of the record's sequence number, item key and changed path, so a record that is
+	 * retried after a partial failure overwrites the entries an earlier attempt already wrote instead of
+	 * adding copies. A record without a sequence number gets a fresh time-ordered id.
+	 */
+	private static String entryId(StreamRecord record, String itemKey, String path) {
+		if (record.getSequenceNumber() == null) {
+			return Ids.next();
 		}
+		String name = record.getSequenceNumber() + "\n" + itemKey + "\n" + path;
+		return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
 	}
 
-	private String extractStringValue(Object valueObj) {
-		if (valueObj instanceof Map) {
-			Map<?, ?> valueMap = (Map<?, ?>) valueObj;
-			if (valueMap.containsKey("S")) {
-				return (String) valueMap.get("S");
+	/**
+	 * Writes all entries and returns the position of the first one that couldn't be written, or -1.
+	 */
+	private int writeAll(List<WriteRequest> writes) {
+		List<List<WriteRequest>> batches = new ArrayList<>();
+		for (int from = 0; from < writes.size(); from += batchItems) {
+			batches.add(writes.subList(from, Math.min(from + batchItems, writes.size())));
+		}
+
+		List<List<WriteRequest>> unwritten = new ArrayList<>(batches.size());
+		if (batchExecutor == null || batches.size() < 2) {
+			for (List<WriteRequest> batch : batches) {
+				unwritten.add(writeBatchOrFail(batch));
+			}
+		} else {
+			List<Future<List<WriteRequest>>> futures = new ArrayList<>(batches.size());
+			for (List<WriteRequest> batch : batches) {
+				futures.add(batchExecutor.submit(() -> writeBatchOrFail(batch)));
+			}
+			// every batch is waited for, so none is still writing once the failures are reported
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					unwritten.add(futures.get(i).get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					unwritten.add(batches.get(i));
+				} catch (ExecutionException e) {
+					unwritten.add(batches.get(i));
+				}
 			}
 		}
-		return null;
-	}
 
-	private Object extractSingleValue(Object valueObj) {
-		if (valueObj instanceof Map) {
-			Map<?, ?> valueMap = (Map<?, ?>) valueObj;
-			if (valueMap.containsKey("S")) {
-				return valueMap.get("S");
-			} else if (valueMap.containsKey("N")) {
-				return Integer.parseInt((String) valueMap.get("N"));
+		for (int i = 0; i < batches.size(); i++) {
+			if (unwritten.get(i).isEmpty()) {
+				continue;
 			}
+			Set<String> ids = new HashSet<>();
+			for (WriteRequest write : unwritten.get(i)) {
+				ids.add(write.putRequest().item().get("id").s());
+			}
+			List<WriteRequest> batch = batches.get(i);
+			for (int j = 0; j < batch.size(); j++) {
+				if (ids.contains(batch.get(j).putRequest().item().get("id").s())) {
+					return i * batchItems + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private List<WriteRequest> writeBatchOrFail(List<WriteRequest> batch) {
+		try {
+			return writeBatch(batch);
+		} catch (RuntimeException e) {
+			LOG.error("Failed to write {} audit records", batch.size(), e);
+			return batch;
 		}
-		return null;
 	}
 
-	private Map<String, AttributeValue> formatConfigItem(Map<String, Object> image) {
-		Map<String, AttributeValue> formattedItem = new HashMap<>();
-		if (image != null) {
-			if (image.containsKey("key")) {
-				formattedItem.put("key", AttributeValue.builder().s(extractStringValue(image.get("key"))).build());
+	/**
+	 * Sends one batch, retrying its UnprocessedItems with exponential backoff and full jitter, and returns the
+	 * items still unprocessed after the last attempt. A throttled call (none of the items written) is retried
+	 * the same way once the SDK's own retries are used up: provisioned throughput exceeded, the account's
+	 * request limit exceeded, or an on-demand table's throttling.
+	 */
+	private List<WriteRequest> writeBatch(List<WriteRequest> batch) {
+		Map<String, List<WriteRequest>> requestItems = Map.of(auditTable, batch);
+		for (int attempt = 1; ; attempt++) {
+			try {
+				BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+						.requestItems(requestItems)
+						.build());
+				if (!response.hasUnprocessedItems() || response.unprocessedItems().isEmpty()) {
+					return List.of();
+				}
+				requestItems = response.unprocessedItems();
+			} catch (AwsServiceException e) {
+				if (!isThrottled(e) || attempt == MAX_ATTEMPTS) {
+					throw e;
+				}
 			}
-			if (image.containsKey("value")) {
-				Object value = extractSingleValue(image.get("value"));
-				formattedItem.put("value", formatAttributeValue(value));
+			List<WriteRequest> unprocessed = requestItems.getOrDefault(auditTable, List.of());
+			if (attempt == MAX_ATTEMPTS) {
+				LOG.warn("{} audit records still unprocessed after {} attempts", unprocessed.size(), MAX_ATTEMPTS);
+				return unprocessed;
 			}
+			LOG.warn("{} audit records unprocessed, retrying attempt {}", unprocessed.size(), attempt + 1);
+			backOff(attempt);
 		}
-		return formattedItem;
 	}
 
-	private AttributeValue formatAttributeValue(Object value) {
-		if (value instanceof String) {
-			return AttributeValue.builder().s((String) value).build();
-		} else if (value instanceof Integer) {
-			return AttributeValue.builder().n(String.valueOf(value)).build();
+	private static boolean isThrottled(AwsServiceException e) {
+		// the error code check covers ThrottlingException, which this SDK version doesn't model as a class
+		return e instanceof ProvisionedThroughputExceededException || e instanceof RequestLimitExceededException
+				|| e.isThrottlingException();
+	}
+
+	private static void backOff(int attempt) {
+		long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying unprocessed audit records", e);
 		}
-		return AttributeValue.builder().nul(true).build();
 	}
 }
@@ -0,0 +1,174 @@
+package com.task06;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares two item images attribute by attribute and lists every changed path, e.g. {@code value},
+ * {@code limits.daily} or {@code hosts[2]}. Maps are compared per key and lists per index, so only the
+ * changed leaves of a nested attribute are reported. A set is compared as a whole, ignoring order. Numbers
+ * are compared by value, so {@code 1.0} equals {@code 1}. Each node is visited once, and identical
+ * references are skipped without descending.
+ */
+public final class ImageDiff {
+
+	public static final class Change {
+		private final String path;
+		private final AttributeValue oldValue;
+		private final AttributeValue newValue;
+
+		Change(String path, AttributeValue oldValue, AttributeValue newValue) {
+			this.path = path;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * {@code null} when the attribute was added.
+		 */
+		public AttributeValue getOldValue() {
+			return oldValue;
+		}
+
+		/**
+		 * {@code null} when the attribute was removed.
+		 */
+		public AttributeValue getNewValue() {
+			return newValue;
+		}
+
+		@Override
+		public String toString() {
+			return path + ": " + oldValue + " -> " + newValue;
+		}
+	}
+
+	private ImageDiff() {
+	}
+
+	public static List<Change> diff(Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage) {
+		List<Change> changes = new ArrayList<>();
+		diffMaps(null, oldImage, newImage, changes);
+		return changes;
+	}
+
+	private static void diffMaps(String path, Map<String, AttributeValue> oldMap, Map<String, AttributeValue> newMap,
+								 List<Change> changes) {
+		for (Map.Entry<String, AttributeValue> entry : oldMap.entrySet()) {
+			diff(path, entry.getKey(), -1, entry.getValue(), newMap.get(entry.getKey()), changes);
+		}
+		for (Map.Entry<String, AttributeValue> entry : newMap.entrySet()) {
+			if (!oldMap.containsKey(entry.getKey())) {
+				changes.add(new Change(path(path, entry.getKey(), -1), null, entry.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Compares the map entry {@code name}, or else the list element {@code index}, of {@code parent}. The
+	 * element's path is only built once it is needed.
+	 */
+	private static void diff(String parent, String name, int index, AttributeValue oldValue, AttributeValue newValue,
+							 List<Change> changes) {
+		if (oldValue == newValue) {
+			return;
+		}
+		if (oldValue == null || newValue == null || oldValue.type() != newValue.type()) {
+			changes.add(new Change(path(parent, name, index), oldValue, newValue));
+			return;
+		}
+		switch (oldValue.type()) {
+			case M:
+				diffMaps(path(parent, name, index), oldValue.m(), newValue.m(), changes);
+				return;
+			case L:
+				String path = path(parent, name, index);
+				List<AttributeValue> oldList = oldValue.l();
+				List<AttributeValue> newList = newValue.l();
+				int common = Math.min(oldList.size(), newList.size());
+				for (int i = 0; i < common; i++) {
+					diff(path, null, i, oldList.get(i), newList.get(i), changes);
+				}
+				for (int i = common; i < oldList.size(); i++) {
+					changes.add(new Change(path(path, null, i), oldList.get(i), null));
+				}
+				for (int i = common; i < newList.size(); i++) {
+					changes.add(new Change(path(path, null, i), null, newList.get(i)));
+				}
+				return;
+			default:
+				if (!sameLeaf(oldValue, newValue)) {
+					changes.add(new Change(path(parent, name, index), oldValue, newValue));
+				}
+		}
+	}
+
+	private static String path(String parent, String name, int index) {
+		if (name == null) {
+			return parent + '[' + index + ']';
+		}
+		return parent == null ? name : parent + '.' + name;
+	}
+
+	private static boolean sameLeaf(AttributeValue oldValue, AttributeValue newValue) {
+		switch (oldValue.type()) {
+			case S:
+				return oldValue.s().equals(newValue.s());
+			case N:
+				return sameNumber(oldValue.n(), newValue.n());
+			case B:
+				return oldValue.b().equals(newValue.b());
+			case BOOL:
+				return oldValue.bool().equals(newValue.bool());
+			case NUL:
+				return true;
+			case SS:
+				return sameSet(oldValue.ss(), newValue.ss());
+			case BS:
+				return sameSet(oldValue.bs(), newValue.bs());
+			case NS:
+				if (oldValue.ns().size() != newValue.ns().size()) {
+					return false;
+				}
+				if (sameSet(oldValue.ns(), newValue.ns())) {
+					return true;
+				}
+				return sameSet(numbers(oldValue.ns()), numbers(newValue.ns()));
+			default:
+				return Objects.equals(oldValue, newValue);
+		}
+	}
+
+	private static boolean sameNumber(String oldNumber, String newNumber) {
+		return oldNumber.equals(newNumber) || new BigDecimal(oldNumber).compareTo(new BigDecimal(newNumber)) == 0;
+	}
+
+	private static <T> boolean sameSet(List<T> oldSet, List<T> newSet) {
+		if (oldSet.size() != newSet.size()) {
+			return false;
+		}
+		// an unchanged set usually comes back in the same order
+		if (oldSet.equals(newSet)) {
+			return true;
+		}
+		return new HashSet<>(oldSet).equals(new HashSet<>(newSet));
+	}
+
+	private static List<BigDecimal> numbers(List<String> numbers) {
+		List<BigDecimal> normalised = new ArrayList<>(numbers.size());
+		for (String number : numbers) {
+			normalised.add(new BigDecimal(number).stripTrailingZeros());
+		}
+		return normalised;
+	}
+}
@@ -0,0 +1,127 @@
+package com.task06;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.shared.AttributeValueCodec;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a DynamoDB stream event straight from its JSON into {@link StreamRecord}s in one pass. Only the
+ * fields the audit uses are materialised; the record metadata is skipped without being built.
+ */
+public final class StreamEventDecoder {
+
+	private static final JsonFactory JSON = new JsonFactory();
+	private StreamEventDecoder() {
+	}
+
+	public static JsonFactory jsonFactory() {
+		return JSON;
+	}
+
+	public static List<StreamRecord> decode(InputStream input) throws IOException {
+		try (JsonParser parser = JSON.createParser(input)) {
+			expect(parser.nextToken(), JsonToken.START_OBJECT);
+			List<StreamRecord> records = new ArrayList<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken token = parser.nextToken();
+				if ("Records".equals(field) && token == JsonToken.START_ARRAY) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						records.add(record(parser));
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Reads one record. A record whose fields can't be read (an unsupported attribute type, say) is skipped to
+	 * its end and comes back carrying the error, so the records before it are still audited; only malformed
+	 * JSON fails the whole event.
+	 */
+	private static StreamRecord record(JsonParser parser) throws IOException {
+		JsonStreamContext recordContext = parser.getParsingContext();
+		String eventName = null;
+		String sequenceNumber = null;
+		Map<String, AttributeValue> keys = null;
+		Map<String, AttributeValue> newImage = null;
+		Map<String, AttributeValue> oldImage = null;
+		try {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken token = parser.nextToken();
+				if ("eventName".equals(field) && token == JsonToken.VALUE_STRING) {
+					eventName = parser.getText();
+				} else if ("dynamodb".equals(field) && token == JsonToken.START_OBJECT) {
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String change = parser.currentName();
+						token = parser.nextToken();
+						if (token == JsonToken.START_OBJECT && "Keys".equals(change)) {
+							keys = AttributeValueCodec.readTypedItem(parser);
+						} else if (token == JsonToken.START_OBJECT && "NewImage".equals(change)) {
+							newImage = AttributeValueCodec.readTypedItem(parser);
+						} else if (token == JsonToken.START_OBJECT && "OldImage".equals(change)) {
+							oldImage = AttributeValueCodec.readTypedItem(parser);
+						} else if (token == JsonToken.VALUE_STRING && "SequenceNumber".equals(change)) {
+							sequenceNumber = parser.getText();
+						} else {
+							parser.skipChildren();
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} catch (JsonParseException e) {
+			// nothing left to find the next record by
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			String skippedSequenceNumber = skipRecord(parser, recordContext);
+			return StreamRecord.failed(sequenceNumber != null ? sequenceNumber : skippedSequenceNumber,
+					e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e);
+		}
+		return new StreamRecord(eventName, sequenceNumber, keys, newImage, oldImage);
+	}
+
+	/**
+	 * Reads past the end of the record at {@code recordContext}, returning its {@code dynamodb.SequenceNumber}
+	 * if that comes up on the way.
+	 */
+	private static String skipRecord(JsonParser parser, JsonStreamContext recordContext) throws IOException {
+		JsonStreamContext outer = recordContext.getParent();
+		String sequenceNumber = null;
+		while (parser.getParsingContext() != outer) {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				throw new IOException("Unexpected end of input in a stream record");
+			}
+			if (token == JsonToken.FIELD_NAME && "SequenceNumber".equals(parser.currentName())
+					&& parser.getParsingContext().getParent() == recordContext
+					&& "dynamodb".equals(recordContext.getCurrentName())
+					&& parser.nextToken() == JsonToken.VALUE_STRING) {
+				sequenceNumber = parser.getText();
+			}
+		}
+		return sequenceNumber;
+	}
+
+	private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+		if (actual != expected) {
+			throw new IOException("Expected " + expected + " but found " + actual);
+		}
+	}
+}
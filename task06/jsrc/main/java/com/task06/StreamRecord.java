@@ -0,0 +1,95 @@
+package com.task06;
+
+import com.shared.AttributeValueCodec;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * The parts of a DynamoDB stream record the audit uses: event name, sequence number, keys and images.
+ */
+public final class StreamRecord {
+
+	private final String eventName;
+	private final String sequenceNumber;
+	private final Map<String, AttributeValue> keys;
+	private final Map<String, AttributeValue> newImage;
+	private final Map<String, AttributeValue> oldImage;
+	private final RuntimeException error;
+
+	StreamRecord(String eventName, String sequenceNumber, Map<String, AttributeValue> keys,
+				 Map<String, AttributeValue> newImage, Map<String, AttributeValue> oldImage) {
+		this(eventName, sequenceNumber, keys, newImage, oldImage, null);
+	}
+
+	private StreamRecord(String eventName, String sequenceNumber, Map<String, AttributeValue> keys,
+						 Map<String, AttributeValue> newImage, Map<String, AttributeValue> oldImage, RuntimeException error) {
+		this.eventName = eventName;
+		this.sequenceNumber = sequenceNumber;
+		this.keys = keys;
+		this.newImage = newImage;
+		this.oldImage = oldImage;
+		this.error = error;
+	}
+
+	/**
+	 * A record that couldn't be read; it is reported as failed when it is audited.
+	 */
+	static StreamRecord failed(String sequenceNumber, RuntimeException error) {
+		return new StreamRecord(null, sequenceNumber, null, null, null, error);
+	}
+
+	/**
+	 * A record from an event the Lambda runtime has deserialised into maps. A record of the wrong shape comes
+	 * back with the error, to be reported as failed when it is audited.
+	 */
+	public static StreamRecord fromMap(Map<?, ?> record) {
+		Map<?, ?> dynamodb = null;
+		try {
+			dynamodb = (Map<?, ?>) record.get("dynamodb");
+			if (dynamodb == null) {
+				return new StreamRecord((String) record.get("eventName"), null, null, null, null);
+			}
+			return new StreamRecord(
+					(String) record.get("eventName"),
+					(String) dynamodb.get("SequenceNumber"),
+					image((Map<?, ?>) dynamodb.get("Keys")),
+					image((Map<?, ?>) dynamodb.get("NewImage")),
+					image((Map<?, ?>) dynamodb.get("OldImage")));
+		} catch (RuntimeException e) {
+			Object sequenceNumber = dynamodb != null ? dynamodb.get("SequenceNumber") : null;
+			return failed(sequenceNumber instanceof String ? (String) sequenceNumber : null, e);
+		}
+	}
+
+	private static Map<String, AttributeValue> image(Map<?, ?> image) {
+		return image == null ? null : AttributeValueCodec.fromTypedItem(image);
+	}
+
+	public String getEventName() {
+		return eventName;
+	}
+
+	public String getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * {@code null} when the record has no {@code Keys}.
+	 */
+	public Map<String, AttributeValue> getKeys() {
+		return keys;
+	}
+
+	public Map<String, AttributeValue> getNewImage() {
+		return newImage;
+	}
+
+	public Map<String, AttributeValue> getOldImage() {
+		return oldImage;
+	}
+
+	RuntimeException getError() {
+		return error;
+	}
+}
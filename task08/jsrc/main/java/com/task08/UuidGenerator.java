@@ -5,6 +5,8 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.Ids;
+import com.shared.Log;
 import com.syndicate.deployment.annotations.EventSource;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariable;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariables;
@@ -30,6 +32,8 @@ import java.util.*;
 @EventBridgeRuleSource(targetRule = "uuid_trigger")
 public class UuidGenerator implements RequestHandler<Object, Map<String, Object>> {
 
+	private static final Log LOG = Log.get(UuidGenerator.class);
+
 	private final AmazonS3 s3Client = AmazonS3ClientBuilder.defaultClient();
 	private final ObjectMapper objectMapper = new ObjectMapper();
 	private final String bucketName = System.getenv("target_bucket");
@@ -45,10 +49,10 @@ public class UuidGenerator implements RequestHandler<Object, Map<String, Object>
 		try {
 			String jsonContent = objectMapper.writeValueAsString(data);
 			s3Client.putObject(bucketName, timestamp, jsonContent);
-			context.getLogger().log("File stored: " + timestamp);
+			LOG.info("File stored: {}", timestamp);
 			return Map.of("statusCode", 200, "body", "File stored successfully");
 		} catch (Exception e) {
-			context.getLogger().log("Error: " + e.getMessage());
+			LOG.error("Error storing file", e);
 			return Map.of("statusCode", 500, "body", "Error storing file");
 		}
 	}
@@ -56,7 +60,7 @@ public class UuidGenerator implements RequestHandler<Object, Map<String, Object>
 	private List<String> generateUUIDs(int count) {
 		List<String> uuids = new ArrayList<>();
 		for (int i = 0; i < count; i++) {
-			uuids.add(UUID.randomUUID().toString());
+			uuids.add(Ids.next());
 		}
 		return uuids;
 	}
@@ -3,8 +3,11 @@ package com.task10;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.xray.AWSXRay;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.AttributeValueCodec;
+import com.shared.Ids;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariable;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariables;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
@@ -27,8 +30,6 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 
 @LambdaHandler(
@@ -52,18 +53,23 @@ import java.util.stream.StreamSupport;
 public class Processor implements RequestHandler<Map<String, Object>, Map<String, Object>> {
 
 	private static final String WEATHER_API_URL = "https://api.open-meteo.com/v1/forecast?latitude=40.7128&longitude=-74.0060&hourly=temperature_2m";
-	private static final String TABLE_NAME = System.getenv("target_table");
 	private final DynamoDbClient dynamoDbClient;
 	private final HttpClient httpClient;
 	private final ObjectMapper objectMapper;
+	private final String tableName;
 
 	public Processor() {
-		this.dynamoDbClient = DynamoDbClient.builder()
+		this(DynamoDbClient.builder()
 				.region(Region.of(System.getenv("region")))
 				.credentialsProvider(DefaultCredentialsProvider.create())
-				.build();
-		this.httpClient = HttpClient.newHttpClient();
+				.build(), HttpClient.newHttpClient(), System.getenv("target_table"));
+	}
+
+	public Processor(DynamoDbClient dynamoDbClient, HttpClient httpClient, String tableName) {
+		this.dynamoDbClient = dynamoDbClient;
+		this.httpClient = httpClient;
 		this.objectMapper = new ObjectMapper();
+		this.tableName = tableName;
 	}
 
 	@Override
@@ -72,14 +78,13 @@ public class Processor implements RequestHandler<Map<String, Object>, Map<String
 
 		try {
 			String weatherData = fetchWeatherData();
-			JsonNode weatherJson = objectMapper.readTree(weatherData);
 
 			Map<String, AttributeValue> item = new HashMap<>();
-			item.put("id", AttributeValue.builder().s(UUID.randomUUID().toString()).build());
-			item.put("forecast", AttributeValue.builder().m(convertMapToAttributeValue(weatherJson)).build());
+			item.put("id", AttributeValue.builder().s(Ids.next()).build());
+			item.put("forecast", AttributeValue.builder().m(readForecast(weatherData)).build());
 
 			PutItemRequest request = PutItemRequest.builder()
-					.tableName(TABLE_NAME)
+					.tableName(tableName)
 					.item(item)
 					.build();
 
@@ -110,39 +115,15 @@ public class Processor implements RequestHandler<Map<String, Object>, Map<String
 		return response.body();
 	}
 
-	public static Map<String, AttributeValue> convertMapToAttributeValue(JsonNode jsonNode) {
-		Map<String, AttributeValue> attributeMap = new HashMap<>();
-
-		if (jsonNode == null || !jsonNode.isObject()) {
-			return attributeMap;
-		}
-
-		Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
-		while (fields.hasNext()) {
-			Map.Entry<String, JsonNode> entry = fields.next();
-			attributeMap.put(entry.getKey(), convertJsonNodeToAttributeValue(entry.getValue()));
-		}
-
-		return attributeMap;
-	}
-
-	private static AttributeValue convertJsonNodeToAttributeValue(JsonNode node) {
-		if (node.isTextual()) {
-			return AttributeValue.builder().s(node.asText()).build();
-		} else if (node.isNumber()) {
-			return AttributeValue.builder().n(node.asText()).build();
-		} else if (node.isBoolean()) {
-			return AttributeValue.builder().bool(node.asBoolean()).build();
-		} else if (node.isArray()) {
-			List<AttributeValue> list = StreamSupport.stream(node.spliterator(), false)
-					.map(Processor::convertJsonNodeToAttributeValue)
-					.collect(Collectors.toList());
-			return AttributeValue.builder().l(list).build();
-		} else if (node.isObject()) {
-			return AttributeValue.builder().m(convertMapToAttributeValue(node)).build();
-		} else if (node.isNull()) {
-			return AttributeValue.builder().nul(true).build();
+	/**
+	 * The forecast document as attribute values, read from the response body without building a JSON tree.
+	 */
+	private Map<String, AttributeValue> readForecast(String weatherData) throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(weatherData)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return new HashMap<>();
+			}
+			return AttributeValueCodec.readItem(parser);
 		}
-		return AttributeValue.builder().build();
 	}
 }
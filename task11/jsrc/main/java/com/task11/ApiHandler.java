@@ -4,9 +4,11 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.shared.Ids;
+import com.shared.Log;
+import org.crac.Core;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariable;
 import com.syndicate.deployment.annotations.environment.EnvironmentVariables;
 import com.syndicate.deployment.annotations.lambda.LambdaHandler;
@@ -21,6 +23,7 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -41,105 +44,323 @@ import static com.syndicate.deployment.model.environment.ValueTransformer.USER_P
         @EnvironmentVariable(key = "COGNITO_ID", value = "${booking_userpool}", valueTransformer = USER_POOL_NAME_TO_USER_POOL_ID),
         @EnvironmentVariable(key = "CLIENT_ID", value = "${booking_userpool}", valueTransformer = USER_POOL_NAME_TO_CLIENT_ID),
         @EnvironmentVariable(key = "table", value = "${tables_table}"),
-        @EnvironmentVariable(key = "reservation", value = "${reservations_table}")
+        @EnvironmentVariable(key = "reservation", value = "${reservations_table}"),
+        @EnvironmentVariable(key = "PRIMING_ENABLED", value = "true"),
+        @EnvironmentVariable(key = "COMPRESSION_MIN_BYTES", value = "1024"),
+        @EnvironmentVariable(key = "RATE_LIMIT_BURST", value = "20"),
+        @EnvironmentVariable(key = "RATE_LIMIT_PER_SECOND", value = "10")
 })
 public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
-    private static final String PASSWORD_REGEX = "^(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)(?=.*[@#$%^&+=!\\-_]).{12,}$";
-    private static List<String> tablesIds = new ArrayList<>();
+    private static final Log LOG = Log.get(ApiHandler.class);
+    // Taken at class initialization so the init time includes building the SDK clients.
+    private static final long CLASS_LOADED_AT = System.nanoTime();
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+    private static final String PHONE_DATE_INDEX = "phoneNumber-date-index";
+    // Cognito group whose members may read every guest's contact details
+    private static final String ADMIN_GROUP = "admin";
+    // only the attributes the responses return; number and date are reserved words
+    private static final String TABLE_PROJECTION = "id, #number, places, isVip, minOrder";
+    private static final String RESERVATION_PROJECTION = "tableNumber, clientName, phoneNumber, #date, slotTimeStart, slotTimeEnd";
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)(?=.*[@#$%^&+=!\\-_]).{12,}$");
+
+    private static final Router ROUTER = new Router()
+            .publicPost("/signup", Credentials.class, ApiHandler::handleSignUp)
+            .publicPost("/signin", Credentials.class, ApiHandler::handleSignIn)
+            .get("/tables", ApiHandler::handleTablesGet)
+            .post("/tables", Table.class, ApiHandler::handleTablePost)
+            .get("/tables/{tableId}", ApiHandler::handleTableGetById)
+            .get("/reservations", ApiHandler::handleReservationsGet)
+            .post("/reservations", Reservation.class, ApiHandler::handleReservationsPost)
+            .post("/reservations/batch", ReservationBatch.class, ApiHandler::handleReservationsBatch)
+            .get("/reservations/export", ADMIN_GROUP, ApiHandler::handleReservationsExport);
 
     private final CognitoIdentityProviderClient cognitoClient;
     private final DynamoDbClient dynamoDbClient;
+    private final String userPoolId;
+    private final String clientId;
+    private final String tablesTable;
+    private final String reservationsTable;
     private final ObjectMapper objectMapper;
-
+    private final ModelCodec modelCodec;
+    private final TokenVerifier tokenVerifier;
+    private final CognitoSignIn cognitoSignIn;
+    private final ReservationSlots reservationSlots;
+    private final TableRegistry tableRegistry;
+    private final TableCache tableCache;
+    private final PagedResponseWriter pagedResponseWriter;
+    private final ReservationExporter reservationExporter;
+    private final ResponseCompression responseCompression;
+    private final RateLimiter rateLimiter;
+    private final Middleware.Chain pipeline;
+    private final Priming priming;
+    private volatile boolean served;
 
     public ApiHandler() {
-        this.dynamoDbClient = DynamoDbClient.builder()
-                .region(Region.of(System.getenv("REGION")))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-        this.cognitoClient = CognitoIdentityProviderClient.builder()
-                .region(Region.of(System.getenv("REGION")))
-                .build();
-        this.objectMapper = new ObjectMapper();
+        this(DynamoDbClient.builder()
+                        .region(Region.of(System.getenv("REGION")))
+                        .credentialsProvider(DefaultCredentialsProvider.create())
+                        .build(),
+                CognitoIdentityProviderClient.builder()
+                        .region(Region.of(System.getenv("REGION")))
+                        .build(),
+                JwksCache.JwksSource.forUserPool(System.getenv("REGION"), System.getenv("COGNITO_ID")),
+                System.getenv("REGION"), System.getenv("COGNITO_ID"), System.getenv("CLIENT_ID"),
+                System.getenv("table"), System.getenv("reservation"));
     }
 
-    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent event, Context context) {
-        String path = event.getPath();
-        String httpMethod = event.getHttpMethod();
-
-        context.getLogger().log("Received request: Path = " + path + ", Method = " + httpMethod);
+    /**
+     * Builds a handler around the given clients instead of the Lambda environment; used by the benchmarks.
+     */
+    public ApiHandler(DynamoDbClient dynamoDbClient, CognitoIdentityProviderClient cognitoClient,
+                      JwksCache.JwksSource jwksSource, String region, String userPoolId, String clientId,
+                      String tablesTable, String reservationsTable) {
+        this(dynamoDbClient, cognitoClient, jwksSource, region, userPoolId, clientId, tablesTable, reservationsTable,
+                rateLimiter(System.getenv("RATE_LIMIT_BURST"), System.getenv("RATE_LIMIT_PER_SECOND")));
+    }
 
+    public ApiHandler(DynamoDbClient dynamoDbClient, CognitoIdentityProviderClient cognitoClient,
+                      JwksCache.JwksSource jwksSource, String region, String userPoolId, String clientId,
+                      String tablesTable, String reservationsTable, RateLimiter rateLimiter) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.cognitoClient = cognitoClient;
+        this.userPoolId = userPoolId;
+        this.clientId = clientId;
+        this.tablesTable = tablesTable;
+        this.reservationsTable = reservationsTable;
+        this.objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+        this.modelCodec = new ModelCodec(objectMapper);
+        this.tokenVerifier = TokenVerifier.forUserPool(region, userPoolId, clientId, jwksSource, objectMapper);
+        this.cognitoSignIn = new CognitoSignIn(cognitoClient, userPoolId, clientId);
+        this.reservationSlots = new ReservationSlots(dynamoDbClient, reservationsTable);
+        this.tableRegistry = new TableRegistry(dynamoDbClient, tablesTable);
+        this.tableCache = new TableCache();
+        this.pagedResponseWriter = new PagedResponseWriter(objectMapper);
+        this.reservationExporter = new ReservationExporter(dynamoDbClient, reservationsTable, pagedResponseWriter);
+        this.rateLimiter = rateLimiter;
+        this.responseCompression = new ResponseCompression(compressionMinBytes(System.getenv("COMPRESSION_MIN_BYTES")));
+        this.pipeline = Middleware.compose(
+                List.of(responseCompression, this::mapErrors, this::route, this::authenticate, this::rateLimit, this::parseBody),
+                request -> request.getRoute().getHandler().handle(this, request));
         try {
-            if (path.startsWith("/tables/")) {
-                if ("GET".equalsIgnoreCase(httpMethod)) {
-                    return handleTableGetById(event, context, path.substring(8)); // Extract ID
-                } else {
-                    return invalidMethodResponse(context);
-                }
-            }
-            
-            switch (path) {
-                case "/signup":
-                    return "POST".equalsIgnoreCase(httpMethod) ? handleSignUp(event, context) : invalidMethodResponse(context);
-                case "/signin":
-                    return "POST".equalsIgnoreCase(httpMethod) ? handleSignIn(event, context) : invalidMethodResponse(context);
-                case "/tables":
-                    if (httpMethod.equalsIgnoreCase("GET")) {
-                        return handleTablesGet(event, context);
-                    }else if(httpMethod.equalsIgnoreCase("POST")){
-                        return handleTablePost(event, context);
-                    }else{
-                        return invalidMethodResponse(context);
-                    }
-                case "/reservations":
-                    if (httpMethod.equalsIgnoreCase("GET")) {
-                        return handleReservationsGet(event, context);
-                    }else if(httpMethod.equalsIgnoreCase("POST")){
-                        return handleReservationsPost(event, context);
-                    }else{
-                        return invalidMethodResponse(context);
-                    }    
-                default:
-                    return errorResponse(400, "Invalid path: " + path, context);
-            }
+            tableRegistry.reload();
         } catch (Exception e) {
-            context.getLogger().log("Error: " + e.getMessage());
-            return errorResponse(500, "Server error: " + (e.getMessage() != null ? e.getMessage() : "Unknown error at path: " + path), context);
+            // Not fatal: the registry loads itself on the first lookup.
+            LOG.warn("Error loading table registry: {}", e.getMessage());
         }
+
+        this.priming = new Priming(
+                List.of(Priming.step("routing", this::primeRouting),
+                        Priming.step("models", this::primeModels),
+                        Priming.step("dynamodb", this::primeDynamoDb),
+                        Priming.step("cognito", this::primeCognito),
+                        Priming.step("jwks", tokenVerifier::warmUp)),
+                List.of(Priming.step("tables", tableRegistry::reload)));
+        // The CRaC context only keeps a weak reference; this handler keeps the strong one.
+        Core.getGlobalContext().register(priming);
+        long primingMillis = Boolean.parseBoolean(System.getenv("PRIMING_ENABLED")) ? priming.prime() : 0;
+        LOG.info("Init finished in {} ms (priming {} ms)", (System.nanoTime() - CLASS_LOADED_AT) / 1_000_000, primingMillis);
     }
 
-    private APIGatewayProxyResponseEvent handleTableGetById(APIGatewayProxyRequestEvent event, Context context, String tableId) {
-        context.getLogger().log("Fetching table with ID: " + tableId);
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent event, Context context) {
+        LOG.info("Received request: Path = {}, Method = {}", event.getPath(), event.getHttpMethod());
+        long startedAt = System.nanoTime();
 
-        // Validate Authorization Token
-        String token = event.getHeaders().get("Authorization");
-        if (token == null || !token.startsWith("Bearer ")) {
-            context.getLogger().log("Missing or invalid Authorization header.");
-            return errorResponse(401, "Missing or invalid Authorization header", context);
+        try {
+            return pipeline.proceed(new ApiRequest(event, context));
+        } catch (Exception e) {
+            // mapErrors handles everything; this only guards against failures while building the error response
+            LOG.error("Error handling request", e);
+            return errorResponse(500, "Server error", context);
+        } finally {
+            if (!served) {
+                served = true;
+                LOG.info("First request handled in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+            }
         }
+    }
 
-        token = token.substring(7);
-        if (!isTokenValid(token, context)) {
-            context.getLogger().log("Unauthorized access attempt with invalid token.");
-            return errorResponse(401, "Unauthorized: Invalid token", context);
+    /**
+     * Sends requests that stop before any side effect through the whole pipeline: error mapping,
+     * routing, authentication and body binding all run, and the handlers themselves are never reached.
+     */
+    private void primeRouting() throws Exception {
+        Context context = new Priming.SyntheticContext();
+        pipeline.proceed(ApiRequest.synthetic(new APIGatewayProxyRequestEvent()
+                .withPath("/tables/1").withHttpMethod("GET").withHeaders(Map.of()), context));
+        pipeline.proceed(ApiRequest.synthetic(new APIGatewayProxyRequestEvent()
+                .withPath("/reservations").withHttpMethod("DELETE"), context));
+        pipeline.proceed(ApiRequest.synthetic(new APIGatewayProxyRequestEvent()
+                .withPath("/signin").withHttpMethod("POST").withBody("{\"email\": \"priming@example.com\"}"), context));
+        isValidEmail("priming@example.com");
+        isValidPassword("Priming-password-1");
+    }
+
+    private void primeModels() throws Exception {
+        modelCodec.read(Table.class, "{\"id\": 1, \"number\": 1, \"places\": 2, \"isVip\": false, \"minOrder\": 0}");
+        Reservation reservation = modelCodec.read(Reservation.class, "{\"tableNumber\": 1, \"clientName\": \"priming\", "
+                + "\"phoneNumber\": \"0\", \"date\": \"2000-01-01\", \"slotTimeStart\": \"10:00\", \"slotTimeEnd\": \"11:00\"}");
+        modelCodec.read(ReservationBatch.class, "{\"reservations\": [{\"tableNumber\": 1, \"clientName\": \"priming\", "
+                + "\"phoneNumber\": \"0\", \"date\": \"2000-01-01\", \"slotTimeStart\": \"10:00\", \"slotTimeEnd\": \"11:00\"}]}");
+        modelCodec.read(Credentials.class, "{\"email\": \"priming@example.com\", \"password\": \"priming\"}");
+
+        Table table = Table.fromItem(new Table(1, 1, 2, false, 0).toItem());
+        modelCodec.write(table);
+        modelCodec.write(new Table.Created(1));
+        modelCodec.write(new Reservation.Created("priming"));
+        modelCodec.write(new ReservationBatch.Response(true, List.of(new ReservationBatch.Result(0, "RESERVED", "priming"))));
+        modelCodec.write(new Credentials.Session("priming", "priming"));
+
+        responseCompression.compress(new byte[ResponseCompression.DEFAULT_MIN_BYTES], ResponseCompression.GZIP);
+        responseCompression.compress(new byte[ResponseCompression.DEFAULT_MIN_BYTES], ResponseCompression.DEFLATE);
+
+        Map<String, AttributeValue> item = reservation.toItem("priming");
+        pagedResponseWriter.write("reservations", 1, null,
+                (startKey, limit) -> new PagedResponseWriter.Page(List.of(item), Map.of("id", item.get("id"))),
+                (row, generator) -> {
+                    generator.writeStartObject();
+                    generator.writeStringField("id", row.get("id").s());
+                    generator.writeEndObject();
+                });
+    }
+
+    /**
+     * One read and one transaction that is cancelled by its own condition: warms the marshallers,
+     * the HTTP connection pool and the TLS session without writing anything.
+     */
+    private void primeDynamoDb() {
+        Map<String, AttributeValue> key = Map.of("id", AttributeValue.builder().s("priming#").build());
+        dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tablesTable)
+                .key(key)
+                .build());
+        try {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(TransactWriteItem.builder()
+                            .conditionCheck(ConditionCheck.builder()
+                                    .tableName(reservationsTable)
+                                    .key(key)
+                                    .conditionExpression("attribute_exists(id)")
+                                    .build())
+                            .build())
+                    .build());
+        } catch (TransactionCanceledException expected) {
+            // the condition is meant to fail
         }
+    }
 
+    private void primeCognito() {
+        cognitoClient.describeUserPool(DescribeUserPoolRequest.builder()
+                .userPoolId(userPoolId)
+                .build());
+    }
+
+    private APIGatewayProxyResponseEvent mapErrors(ApiRequest request, Middleware.Chain next) {
+        Context context = request.getContext();
         try {
-            // Get the table name from environment variables
-            String tableName = System.getenv("table"); // Use a meaningful variable name
-            context.getLogger().log("DynamoDB table name: " + tableName);
+            return next.proceed(request);
+        } catch (ValidationException e) {
+            return errorResponse(e.getStatusCode(), e.getMessage(), e.getField(), context);
+        } catch (ApiException e) {
+            return errorResponse(e.getStatusCode(), e.getMessage(), context);
+        } catch (PagedResponseWriter.InvalidPageRequestException e) {
+            return errorResponse(400, e.getMessage(), context);
+        } catch (ReservationSlots.ContentionException e) {
+            LOG.warn("Booking gave up: {}", e.getMessage());
+            return errorResponse(409, e.getMessage() + ", please try again", context);
+        } catch (Exception e) {
+            LOG.error("Error handling {}", request.getPath(), e);
+            return errorResponse(500, "Server error: " + (e.getMessage() != null ? e.getMessage() : "Unknown error at path: " + request.getPath()), context);
+        }
+    }
+
+    private APIGatewayProxyResponseEvent route(ApiRequest request, Middleware.Chain next) throws Exception {
+        request.setMatch(ROUTER.match(request.getHttpMethod(), request.getPath()));
+        return next.proceed(request);
+    }
+
+    private APIGatewayProxyResponseEvent authenticate(ApiRequest request, Middleware.Chain next) throws Exception {
+        if (request.getRoute().isAuthenticated()) {
+            String header = request.getHeader("Authorization");
+            if (header == null || !header.startsWith("Bearer ")) {
+                throw new ApiException(401, "Missing or invalid Authorization header");
+            }
+            String token = header.substring(7);
+            TokenVerifier.Identity identity = verifiedIdentity(token);
+            if (identity == null) {
+                throw new ApiException(401, "Unauthorized: Invalid token");
+            }
+            String group = request.getRoute().getRequiredGroup();
+            if (group != null && !identity.isMemberOf(group)) {
+                throw new ApiException(403, "Forbidden: requires membership of the " + group + " group");
+            }
+            request.setToken(token);
+            request.setCaller(identity.getSubject());
+        } else {
+            request.setCaller(request.getSourceIp());
+        }
+        return next.proceed(request);
+    }
 
+    /**
+     * Turns away callers that exceed their bucket for the route before anything reaches Cognito or DynamoDB.
+     */
+    private APIGatewayProxyResponseEvent rateLimit(ApiRequest request, Middleware.Chain next) throws Exception {
+        if (request.isSynthetic()) {
+            // priming requests come from no caller and must not drain the shared "unknown" bucket
+            return next.proceed(request);
+        }
+        String caller = request.getCaller() != null ? request.getCaller() : "unknown";
+        long waitNanos = rateLimiter.tryAcquire(caller + " " + request.getRoute().getName());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            LOG.info("Rate limited {} on {} ({} rejected so far)", caller, request.getRoute().getName(), rateLimiter.getRejected());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(429)
+                    .withHeaders(Map.of("Content-Type", "application/json", "Retry-After", String.valueOf(retryAfterSeconds)))
+                    .withBody("{\"error\": \"Too many requests\"}");
+        }
+        return next.proceed(request);
+    }
 
-            // Convert tableId to an integer
-            int tableIdInt;
-            try {
-                tableIdInt = Integer.parseInt(tableId);
-            } catch (NumberFormatException e) {
-                return errorResponse(400, "Invalid table ID: Must be an integer", context);
+    private APIGatewayProxyResponseEvent parseBody(ApiRequest request, Middleware.Chain next) throws Exception {
+        if (request.getRoute().hasBody()) {
+            String body = request.getEvent().getBody();
+            if (body != null && Boolean.TRUE.equals(request.getEvent().getIsBase64Encoded())) {
+                // with */* as a binary media type API Gateway hands JSON bodies over base64-encoded too
+                try {
+                    body = new String(Base64.getMimeDecoder().decode(body), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(400, "Invalid request body encoding");
+                }
             }
+            if (body == null || body.isBlank()) {
+                throw new ApiException(400, "Request body is required");
+            }
+            request.setBody(modelCodec.read(request.getRoute().getBodyType(), body));
+        }
+        return next.proceed(request);
+    }
+
+    private APIGatewayProxyResponseEvent handleTableGetById(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        String tableId = request.getPathParameter("tableId");
+        LOG.debug("Fetching table with ID: {}", tableId);
+
+        // Get the table name from environment variables
+        String tableName = tablesTable; // Use a meaningful variable name
+
 
+        // Table ids are integers
+        try {
+            Integer.parseInt(tableId);
+        } catch (NumberFormatException e) {
+            return errorResponse(400, "Invalid table ID: Must be an integer", context);
+        }
+
+        TableCache.CachedBody cached = tableCache.get(tableId);
+        if (cached == null) {
             // Prepare the key for the query
             Map<String, AttributeValue> key = new HashMap<>();
             key.put("id", AttributeValue.builder().s(tableId).build());
@@ -153,360 +374,264 @@ public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, A
             GetItemResponse response = dynamoDbClient.getItem(getItemRequest);
 
             if (!response.hasItem()) {
-                context.getLogger().log("Table not found: " + tableId);
+                LOG.info("Table not found: {}", tableId);
                 return errorResponse(404, "Table not found", context);
             }
 
-            Map<String, AttributeValue> item = response.item();
-
-            // Construct the response JSON
-            Map<String, Object> responseBody = new LinkedHashMap<>();
-            responseBody.put("id", tableIdInt); // Ensure ID is returned as an integer
-            responseBody.put("number", Integer.parseInt(item.get("number").n()));
-            responseBody.put("places", Integer.parseInt(item.get("places").n()));
-            responseBody.put("isVip", item.get("isVip").bool());
-            responseBody.put("minOrder", item.containsKey("minOrder") ? Integer.parseInt(item.get("minOrder").n()) : 0);
-
-            String jsonResponse = objectMapper.writeValueAsString(responseBody);
-            context.getLogger().log("Successfully fetched table: " + jsonResponse);
+            cached = tableCache.put(tableId, modelCodec.write(Table.fromItem(response.item())));
+            LOG.debug("Successfully fetched table: {}", cached.getBody());
+        }
 
+        if (cached.matches(request.getHeader("If-None-Match"))) {
             return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withBody(jsonResponse)
-                    .withHeaders(Map.of("Content-Type", "application/json"));
-
-        } catch (Exception e) {
-            context.getLogger().log("Error fetching table: " + e.getMessage());
-            return errorResponse(500, "Server error: " + e.getMessage(), context);
+                    .withStatusCode(304)
+                    .withHeaders(Map.of("ETag", cached.getEtag()));
         }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withBody(cached.getBody())
+                .withHeaders(Map.of("Content-Type", "application/json", "ETag", cached.getEtag()));
     }
 
-    private APIGatewayProxyResponseEvent handleReservationsPost(APIGatewayProxyRequestEvent event, Context context) {
-        context.getLogger().log("Processing new reservation request...");
+    private APIGatewayProxyResponseEvent handleReservationsPost(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        LOG.debug("Processing new reservation request...");
 
-        // Validate Authorization Token
-        String token = event.getHeaders().get("Authorization");
-        if (token == null || !token.startsWith("Bearer ")) {
-            return errorResponse(401, "Missing or invalid Authorization header", context);
-        }
+        Reservation requestBody = request.getBody(Reservation.class);
+        String tableNumber = String.valueOf(requestBody.getTableNumber());
 
-        token = token.substring(7);
-        if (!isTokenValid(token, context)) {
-            return errorResponse(401, "Unauthorized: Invalid token", context);
+        if (!doesTableExist(tableNumber, context)) {
+            return errorResponse(400, "Table does not exist", context);
         }
 
-        try {
-            Map<String, Object> requestBody = objectMapper.readValue(event.getBody(), new TypeReference<>() {});
-            String tableNumber = requestBody.get("tableNumber").toString();
-            String clientName = requestBody.get("clientName").toString();
-            String phoneNumber = requestBody.get("phoneNumber").toString();
-            String date = requestBody.get("date").toString();
-            String slotTimeStart = requestBody.get("slotTimeStart").toString();
-            String slotTimeEnd = requestBody.get("slotTimeEnd").toString();
-
-            if (!doesTableExist(tableNumber, context)) {
-                return errorResponse(400, "Table does not exist", context);
-            }
+        // time-ordered, so reservation ids sort by creation time
+        String reservationId = Ids.next();
 
-            if (isTableAlreadyReserved(tableNumber, date, slotTimeStart, slotTimeEnd, context)) {
-                return errorResponse(400, "Table is already reserved for the selected time slot", context);
-            }
+        Map<String, AttributeValue> reservation = requestBody.toItem(reservationId);
 
-            // Generate UUID for reservation ID
-            String reservationId = UUID.randomUUID().toString();
-            String tableName = System.getenv("reservation");  // Ensure this env variable is correct
-
-            // Ensure primary key matches table schema
-            Map<String, AttributeValue> reservation = new HashMap<>();
-            reservation.put("id", AttributeValue.builder().s(reservationId).build());  // Ensure key matches DB schema
-            reservation.put("reservationId", AttributeValue.builder().s(reservationId).build()); // Optional
-            reservation.put("tableNumber", AttributeValue.builder().n(tableNumber).build());
-            reservation.put("clientName", AttributeValue.builder().s(clientName).build());
-            reservation.put("phoneNumber", AttributeValue.builder().s(phoneNumber).build());
-            reservation.put("date", AttributeValue.builder().s(date).build());
-            reservation.put("slotTimeStart", AttributeValue.builder().s(slotTimeStart).build());
-            reservation.put("slotTimeEnd", AttributeValue.builder().s(slotTimeEnd).build());
-
-            // Put item into DynamoDB
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(reservation)
-                    .build();
-
-            dynamoDbClient.putItem(putItemRequest);
+        // Claim the slot and store the reservation in one transaction
+        if (!reservationSlots.reserve(tableNumber, requestBody.getDate(), requestBody.getSlotTimeStart(),
+                requestBody.getSlotTimeEnd(), reservation)) {
+            return errorResponse(400, "Table is already reserved for the selected time slot", context);
+        }
 
-            // Response
-            Map<String, String> responseBody = new HashMap<>();
-            responseBody.put("reservationId", reservationId);
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withBody(modelCodec.write(new Reservation.Created(reservationId)))
+                .withHeaders(Map.of("Content-Type", "application/json"));
+    }
 
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withBody(objectMapper.writeValueAsString(responseBody))
-                    .withHeaders(Map.of("Content-Type", "application/json"));
+    private APIGatewayProxyResponseEvent handleReservationsBatch(ApiRequest request) throws Exception {
+        List<Reservation> reservations = request.getBody(ReservationBatch.class).getReservations();
+        LOG.debug("Processing batch of {} reservations", reservations.size());
 
-        } catch (Exception e) {
-            return errorResponse(500, "Server error: " + e.getMessage(), context);
-        }
-    }
-
-
-
-
-//    private APIGatewayProxyResponseEvent handleReservationsPost(APIGatewayProxyRequestEvent event, Context context) {
-//        context.getLogger().log("Processing new reservation request...");
-//
-//        // Validate Authorization Token
-//        String token = event.getHeaders().get("Authorization");
-//        if (token == null || !token.startsWith("Bearer ")) {
-//            return errorResponse(401, "Missing or invalid Authorization header", context);
-//        }
-//
-//        token = token.substring(7);
-//        if (!isTokenValid(token, context)) {
-//            return errorResponse(401, "Unauthorized: Invalid token", context);
-//        }
-//
-//        try {
-//            Map<String, Object> requestBody = objectMapper.readValue(event.getBody(), new TypeReference<>() {});
-//            String tableNumber = requestBody.get("tableNumber").toString();
-//            String clientName = requestBody.get("clientName").toString();
-//            String phoneNumber = requestBody.get("phoneNumber").toString();
-//            String date = requestBody.get("date").toString();
-//            String slotTimeStart = requestBody.get("slotTimeStart").toString();
-//            String slotTimeEnd = requestBody.get("slotTimeEnd").toString();
-//
-//            // Check if the table exists
-//            if (!doesTableExist(tableNumber, context)) {
-//                return errorResponse(400, "Table does not exist", context);
-//            }
-//
-//            // Check for conflicts in reservations
-//            if (isTableAlreadyReserved(tableNumber, date, slotTimeStart, slotTimeEnd, context)) {
-//                return errorResponse(400, "Table is already reserved for the selected time slot", context);
-//            }
-//
-//            String reservationId = UUID.randomUUID().toString();
-//            String tableName = System.getenv("reservation");
-//
-//            Map<String, AttributeValue> reservation = new HashMap<>();
-//            reservation.put("id", AttributeValue.builder().s(reservationId).build());
-//            reservation.put("reservationId", AttributeValue.builder().s(reservationId).build());
-//            reservation.put("tableNumber", AttributeValue.builder().n(tableNumber).build());
-//            reservation.put("clientName", AttributeValue.builder().s(clientName).build());
-//            reservation.put("phoneNumber", AttributeValue.builder().s(phoneNumber).build());
-//            reservation.put("date", AttributeValue.builder().s(date).build());
-//            reservation.put("slotTimeStart", AttributeValue.builder().s(slotTimeStart).build());
-//            reservation.put("slotTimeEnd", AttributeValue.builder().s(slotTimeEnd).build());
-//
-//            PutItemRequest putItemRequest = PutItemRequest.builder()
-//                    .tableName(tableName)
-//                    .item(reservation)
-//                    .build();
-//
-//            dynamoDbClient.putItem(putItemRequest);
-//
-//            Map<String, String> responseBody = new HashMap<>();
-//            responseBody.put("reservationId", reservationId);
-//
-//            return new APIGatewayProxyResponseEvent()
-//                    .withStatusCode(200)
-//                    .withBody(objectMapper.writeValueAsString(responseBody))
-//                    .withHeaders(Map.of("Content-Type", "application/json"));
-//        } catch (Exception e) {
-//            return errorResponse(500, "Server error: " + e.getMessage(), context);
-//        }
-//    }
-
-
-
-    private APIGatewayProxyResponseEvent handleReservationsGet(APIGatewayProxyRequestEvent event, Context context) {
-        context.getLogger().log("Fetching all reservations...");
-
-        // Validate Authorization Token
-        String token = event.getHeaders().get("Authorization");
-        if (token == null || !token.startsWith("Bearer ")) {
-            return errorResponse(401, "Missing or invalid Authorization header", context);
-        }
-
-        token = token.substring(7);
-        if (!isTokenValid(token, context)) {
-            return errorResponse(401, "Unauthorized: Invalid token", context);
+        List<ReservationBatch.Result> results = new ArrayList<>(reservations.size());
+        boolean tablesExist = true;
+        for (int i = 0; i < reservations.size(); i++) {
+            boolean exists = doesTableExist(String.valueOf(reservations.get(i).getTableNumber()), request.getContext());
+            results.add(new ReservationBatch.Result(i, exists ? ReservationSlots.Outcome.NOT_BOOKED.name() : "TABLE_NOT_FOUND", null));
+            tablesExist &= exists;
         }
 
-        try {
-            String tableName = System.getenv("reservation");
-            ScanRequest scanRequest = ScanRequest.builder().tableName(tableName).build();
-            ScanResponse scanResponse = dynamoDbClient.scan(scanRequest);
-
-            List<Map<String, Object>> reservations = new ArrayList<>();
-            for (Map<String, AttributeValue> item : scanResponse.items()) {
-                Map<String, Object> reservation = new HashMap<>();
-                reservation.put("tableNumber", Integer.parseInt(item.get("tableNumber").n()));
-                reservation.put("clientName", item.get("clientName").s());
-                reservation.put("phoneNumber", item.get("phoneNumber").s());
-                reservation.put("date", item.get("date").s());
-                reservation.put("slotTimeStart", item.get("slotTimeStart").s());
-                reservation.put("slotTimeEnd", item.get("slotTimeEnd").s());
-                reservations.add(reservation);
+        boolean reserved = false;
+        if (tablesExist) {
+            List<String> reservationIds = new ArrayList<>(reservations.size());
+            List<ReservationSlots.Booking> bookings = new ArrayList<>(reservations.size());
+            for (Reservation reservation : reservations) {
+                String reservationId = Ids.next();
+                reservationIds.add(reservationId);
+                bookings.add(new ReservationSlots.Booking(String.valueOf(reservation.getTableNumber()), reservation.getDate(),
+                        reservation.getSlotTimeStart(), reservation.getSlotTimeEnd(), reservation.toItem(reservationId)));
             }
 
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("reservations", reservations);
-
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withBody(objectMapper.writeValueAsString(responseBody))
-                    .withHeaders(Map.of("Content-Type", "application/json"));
-        } catch (Exception e) {
-            return errorResponse(500, "Server error: " + e.getMessage(), context);
+            List<ReservationSlots.Outcome> outcomes = reservationSlots.reserveAll(bookings);
+            reserved = true;
+            for (int i = 0; i < outcomes.size(); i++) {
+                ReservationSlots.Outcome outcome = outcomes.get(i);
+                boolean stored = outcome == ReservationSlots.Outcome.RESERVED;
+                results.set(i, new ReservationBatch.Result(i, outcome.name(), stored ? reservationIds.get(i) : null));
+                reserved &= stored;
+            }
         }
-    }
+        LOG.info("Batch of {} reservations stored: {}", reservations.size(), reserved);
 
-    private APIGatewayProxyResponseEvent handleTablePost(APIGatewayProxyRequestEvent event, Context context) {
-        context.getLogger().log("Receiving request -> "+ event.getBody());
-        String token = event.getHeaders().get("Authorization");
-        context.getLogger().log("Authorization token: " + token);
-        if (token == null || !token.startsWith("Bearer ")) {
-            context.getLogger().log("Missing or invalid Authorization header: " + token);
-            return errorResponse(401, "Missing or invalid Authorization header", context);
-        }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(reserved ? 200 : 400)
+                .withBody(modelCodec.write(new ReservationBatch.Response(reserved, results)))
+                .withHeaders(Map.of("Content-Type", "application/json"));
+    }
 
-        token = token.substring(7); // Remove "Bearer " prefix
+    private APIGatewayProxyResponseEvent handleReservationsGet(ApiRequest request) throws Exception {
+        Map<String, String> query = request.getQueryParameters();
+        String responseBody = pagedResponseWriter.write("reservations", PagedResponseWriter.parseLimit(query),
+                PagedResponseWriter.nextToken(query), reservationsSource(query),
+                (item, generator) -> {
+                    generator.writeStartObject();
+                    PagedResponseWriter.writeNumberField(generator, "tableNumber", item.get("tableNumber"));
+                    generator.writeStringField("clientName", item.get("clientName").s());
+                    generator.writeStringField("phoneNumber", item.get("phoneNumber").s());
+                    generator.writeStringField("date", item.get("date").s());
+                    generator.writeStringField("slotTimeStart", item.get("slotTimeStart").s());
+                    generator.writeStringField("slotTimeEnd", item.get("slotTimeEnd").s());
+                    generator.writeEndObject();
+                });
 
-        context.getLogger().log("Bearer is removed " + token);
-        if (!isTokenValid(token, context)) {
-            context.getLogger().log("Unauthorized: Invalid token: "+ token);
-            return errorResponse(401, "Unauthorized: Invalid token", context);
-        }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withBody(responseBody)
+                .withHeaders(Map.of("Content-Type", "application/json"));
+    }
 
-        try {
-            context.getLogger().log("Starting request processing...");
-
-            String tableName = System.getenv("table");
-            context.getLogger().log("Table name retrieved from environment: " + tableName);
-
-            JsonNode body = objectMapper.readTree(event.getBody());
-            context.getLogger().log("Request body parsed successfully.");
-
-            int id = body.get("id").asInt();
-            int number = body.get("number").asInt();
-            int places = body.get("places").asInt();
-            boolean isVip = body.get("isVip").asBoolean();
-            int minOrder = body.has("minOrder") ? body.get("minOrder").asInt() : 0;
-
-            context.getLogger().log("Extracted values - id: " + id + ", number: " + number +
-                    ", places: " + places + ", isVip: " + isVip + ", minOrder: " + minOrder);
-
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("id", AttributeValue.builder().s(String.valueOf(id)).build());
-            item.put("number", AttributeValue.builder().n(String.valueOf(number)).build());
-            item.put("places", AttributeValue.builder().n(String.valueOf(places)).build());
-            item.put("isVip", AttributeValue.builder().bool(isVip).build());
-            if (body.has("minOrder")) {
-                item.put("minOrder", AttributeValue.builder().n(String.valueOf(minOrder)).build());
+    /**
+     * With {@code phoneNumber} (and optionally {@code from}/{@code to} dates, inclusive) only that guest's
+     * reservations are read from the phone number index; without it the whole table is scanned.
+     */
+    private PagedResponseWriter.PageSource reservationsSource(Map<String, String> query) {
+        String tableName = reservationsTable;
+        String phoneNumber = query == null ? null : query.get("phoneNumber");
+        String from = query == null ? null : query.get("from");
+        String to = query == null ? null : query.get("to");
+
+        if (phoneNumber == null || phoneNumber.isBlank()) {
+            if (from != null || to != null) {
+                throw new ApiException(400, "from and to require phoneNumber");
             }
-
-            context.getLogger().log("Item map constructed: " + item.toString());
-
-            PutItemRequest putItemRequest = PutItemRequest.builder()
+            LOG.debug("Fetching all reservations...");
+            ScanRequest scanRequest = ScanRequest.builder()
                     .tableName(tableName)
-                    .item(item)
+                    .filterExpression("NOT begins_with(id, :ledgerPrefix)") // skip slot ledger items
+                    .projectionExpression(RESERVATION_PROJECTION)
+                    .expressionAttributeNames(Map.of("#date", "date"))
+                    .expressionAttributeValues(Map.of(":ledgerPrefix", AttributeValue.builder().s(ReservationSlots.LEDGER_ID_PREFIX).build()))
                     .build();
+            return PagedResponseWriter.PageSource.scan(dynamoDbClient, scanRequest);
+        }
 
-            context.getLogger().log("PutItemRequest created: " + putItemRequest.toString());
-
-            dynamoDbClient.putItem(putItemRequest);
-            context.getLogger().log("Data inserted into DynamoDB successfully.");
-
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("id", id);
-
-            String responseString = objectMapper.writeValueAsString(responseBody);
-            context.getLogger().log("Response created: " + responseString);
-            tablesIds.add(String.valueOf(body.get("number")));
-            return successResponse(responseString, context);
-        } catch (Exception e) {
-            context.getLogger().log("Error saving table: " + e.getMessage());
-            return errorResponse(500, "Error saving table.", context);
+        LOG.debug("Fetching reservations of one guest from {} to {}", from, to);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":phoneNumber", AttributeValue.builder().s(phoneNumber).build());
+        String keyCondition = "phoneNumber = :phoneNumber";
+        if (from != null && to != null) {
+            if (from.compareTo(to) > 0) {
+                throw new ApiException(400, "from must not be after to");
+            }
+            keyCondition += " AND #date BETWEEN :from AND :to";
+        } else if (from != null) {
+            keyCondition += " AND #date >= :from";
+        } else if (to != null) {
+            keyCondition += " AND #date <= :to";
+        }
+        if (from != null) {
+            values.put(":from", AttributeValue.builder().s(from).build());
+        }
+        if (to != null) {
+            values.put(":to", AttributeValue.builder().s(to).build());
         }
 
+        QueryRequest queryRequest = QueryRequest.builder()
+                .tableName(tableName)
+                .indexName(PHONE_DATE_INDEX)
+                .keyConditionExpression(keyCondition)
+                .projectionExpression(RESERVATION_PROJECTION)
+                .expressionAttributeNames(Map.of("#date", "date"))
+                .expressionAttributeValues(values)
+                .build();
+        return PagedResponseWriter.PageSource.query(dynamoDbClient, queryRequest);
     }
 
+    private APIGatewayProxyResponseEvent handleReservationsExport(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        Map<String, String> query = request.getQueryParameters();
 
-    private APIGatewayProxyResponseEvent handleTablesGet(APIGatewayProxyRequestEvent event, Context context) {
-
-        context.getLogger().log("Receiving request -> "+ event.getBody());
-        String token = event.getHeaders().get("Authorization");
-        context.getLogger().log("Authorization token: " + token);
-        if (token == null || !token.startsWith("Bearer ")) {
-            context.getLogger().log("Missing or invalid Authorization header: " + token);
-            return errorResponse(401, "Missing or invalid Authorization header", context);
+        int segments;
+        try {
+            segments = ReservationExporter.parseSegments(query);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(400, e.getMessage(), context);
         }
 
-        token = token.substring(7); // Remove "Bearer " prefix
-
-        context.getLogger().log("Bearer is removed " + token);
-        if (!isTokenValid(token, context)) {
-            context.getLogger().log("Unauthorized: Invalid token: "+ token);
-            return errorResponse(401, "Unauthorized: Invalid token", context);
+        ReservationExporter.Export export = reservationExporter.export(segments,
+                PagedResponseWriter.parseLimit(query), PagedResponseWriter.nextToken(query));
+        StringJoiner segmentRates = new StringJoiner(",");
+        for (ReservationExporter.SegmentStats segment : export.getSegments()) {
+            LOG.info("Export {}", segment);
+            segmentRates.add(segment.getSegment() + "=" + Math.round(segment.getItemsPerSecond()));
         }
-        try {
-            context.getLogger().log("Starting table scan request...");
-
-            String tableName = System.getenv("table");
-            context.getLogger().log("Table name retrieved from environment: " + tableName);
-
-            ScanRequest scanRequest = ScanRequest.builder()
-                    .tableName(tableName)
-                    .build();
+        LOG.info("Exported {} reservations from {} segments in {} ms", export.getItems(), segments, export.getElapsedMillis());
 
-            context.getLogger().log("ScanRequest created: " + scanRequest.toString());
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withBody(export.getBody())
+                .withHeaders(Map.of(
+                        "Content-Type", "application/json",
+                        "X-Export-Items", String.valueOf(export.getItems()),
+                        "X-Export-Consumed-Capacity", String.valueOf(export.getConsumedCapacity()),
+                        "X-Export-Elapsed-Ms", String.valueOf(export.getElapsedMillis()),
+                        "X-Export-Items-Per-Second", String.valueOf(Math.round(export.getItemsPerSecond())),
+                        "X-Export-Segment-Items-Per-Second", segmentRates.toString()));
+    }
 
-            ScanResponse scanResponse = dynamoDbClient.scan(scanRequest);
-            context.getLogger().log("ScanResponse received. Item count: " + scanResponse.count());
+    private APIGatewayProxyResponseEvent handleTablePost(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        String tableName = tablesTable;
+        Table table = request.getBody(Table.class);
+        Map<String, AttributeValue> item = table.toItem();
 
-            List<Map<String, AttributeValue>> items = scanResponse.items();
-            List<Map<String, Object>> tables = new ArrayList<>();
+        PutItemRequest putItemRequest = PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .build();
 
-            context.getLogger().log("Processing retrieved items...");
+        dynamoDbClient.putItem(putItemRequest);
+        LOG.debug("Stored table {}", table.getId());
 
-            for (Map<String, AttributeValue> item : items) {
-                Map<String, Object> table = new HashMap<>();
-                table.put("id", Integer.parseInt(item.get("id").s()));
-                table.put("number", Integer.parseInt(item.get("number").n()));
-                table.put("places", Integer.parseInt(item.get("places").n()));
-                table.put("isVip", Boolean.parseBoolean(item.get("isVip").bool().toString()));
+        String responseString = modelCodec.write(new Table.Created(table.getId()));
+        tableRegistry.register(String.valueOf(table.getNumber()));
+        tableCache.invalidate(String.valueOf(table.getId()));
+        return successResponse(responseString, context);
+    }
 
-                if (item.containsKey("minOrder")) {
-                    table.put("minOrder", Integer.parseInt(item.get("minOrder").n()));
-                }
 
-                tables.add(table);
-                context.getLogger().log("Processed item: " + table.toString());
-            }
+    private APIGatewayProxyResponseEvent handleTablesGet(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        LOG.debug("Starting table scan request...");
 
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("tables", tables);
+        String tableName = tablesTable;
 
-            String responseString = objectMapper.writeValueAsString(responseBody);
-            context.getLogger().log("Response created: " + responseString);
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(tableName)
+                .projectionExpression(TABLE_PROJECTION)
+                .expressionAttributeNames(Map.of("#number", "number"))
+                .build();
 
-            return successResponse(responseString, context);
-        } catch (Exception e) {
-            context.getLogger().log("Error fetching tables: " + e.getMessage());
-            return errorResponse(500, "Error fetching tables.", context);
-        }
+        Map<String, String> query = request.getQueryParameters();
+        String responseString = pagedResponseWriter.write("tables", PagedResponseWriter.parseLimit(query),
+                PagedResponseWriter.nextToken(query), PagedResponseWriter.PageSource.scan(dynamoDbClient, scanRequest),
+                (item, generator) -> {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", Integer.parseInt(item.get("id").s()));
+                    PagedResponseWriter.writeNumberField(generator, "number", item.get("number"));
+                    PagedResponseWriter.writeNumberField(generator, "places", item.get("places"));
+                    generator.writeBooleanField("isVip", item.get("isVip").bool());
+                    if (item.containsKey("minOrder")) {
+                        PagedResponseWriter.writeNumberField(generator, "minOrder", item.get("minOrder"));
+                    }
+                    generator.writeEndObject();
+                });
+        LOG.debug("Response created: {} chars", responseString.length());
 
+        return successResponse(responseString, context);
     }
 
 
 
-    private APIGatewayProxyResponseEvent handleSignUp(APIGatewayProxyRequestEvent event, Context context) throws Exception {
-        JsonNode body = objectMapper.readTree(event.getBody());
-        String email = body.get("email").asText();
-        String password = body.get("password").asText();
+    private APIGatewayProxyResponseEvent handleSignUp(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        Credentials credentials = request.getBody(Credentials.class);
+        String email = credentials.getEmail();
+        String password = credentials.getPassword();
 
-        context.getLogger().log("Processing signup for email: " + email);
+        LOG.debug("Processing signup for email: {}", email);
 
         if (!isValidEmail(email)) {
             return errorResponse(400, "Invalid email format.", context);
@@ -517,7 +642,7 @@ public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, A
 
         try {
             SignUpRequest signUpRequest = SignUpRequest.builder()
-                    .clientId(System.getenv("CLIENT_ID"))
+                    .clientId(clientId)
                     .username(email)
                     .password(password)
                     .userAttributes(
@@ -526,39 +651,27 @@ public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, A
                     .build();
 
             cognitoClient.signUp(signUpRequest);
+            cognitoSignIn.signedUp(email);
 
-            context.getLogger().log("User registered successfully: " + email);
+            LOG.info("User registered successfully: {}", email);
             return successResponse("User registered successfully.", context);
         } catch (UsernameExistsException e) {
-            context.getLogger().log("Signup error: User already exists - " + email);
+            LOG.info("Signup error: User already exists - {}", email);
             return errorResponse(400, "User already exists.", context);
         } catch (Exception e) {
-            context.getLogger().log("Signup error: " + e.getMessage());
+            LOG.error("Signup error", e);
             return errorResponse(500, "Signup error: " + e.getMessage(), context);
         }
     }
 
 
-    private void confirmSignUp(String email) {
-        try {
-            cognitoClient.adminConfirmSignUp(AdminConfirmSignUpRequest.builder()
-                    .userPoolId(System.getenv("COGNITO_ID"))
-                    .username(email)
-                    .build());
+    private APIGatewayProxyResponseEvent handleSignIn(ApiRequest request) throws Exception {
+        Context context = request.getContext();
+        Credentials credentials = request.getBody(Credentials.class);
+        String email = credentials.getEmail();
+        String password = credentials.getPassword();
 
-            System.out.println("User confirmed successfully: " + email);
-        } catch (Exception e) {
-            System.err.println("Error confirming user " + email + ": " + e.getMessage());
-            throw new RuntimeException("Failed to confirm user: " + email, e);
-        }
-    }
-
-    private APIGatewayProxyResponseEvent handleSignIn(APIGatewayProxyRequestEvent event, Context context) throws Exception {
-        JsonNode body = objectMapper.readTree(event.getBody());
-        String email = body.get("email").asText();
-        String password = body.get("password").asText();
-
-        context.getLogger().log("Processing signin for email: " + email);
+        LOG.debug("Processing signin for email: {}", email);
 
         if (!isValidEmail(email)) {
             return errorResponse(400, "Invalid email format.", context);
@@ -568,85 +681,83 @@ public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, A
         }
 
         try {
-            AdminGetUserResponse userResponse = cognitoClient.adminGetUser(AdminGetUserRequest.builder()
-                    .userPoolId(System.getenv("COGNITO_ID"))
-                    .username(email)
-                    .build());
+            AuthenticationResultType authResult = cognitoSignIn.signIn(email, password);
 
-            if (userResponse.userStatus() != UserStatusType.CONFIRMED) {
-                context.getLogger().log("User is not confirmed: " + email + ". Confirming now...");
-                confirmSignUp(email);
-            }
-
-            AdminInitiateAuthRequest authRequest = AdminInitiateAuthRequest.builder()
-                    .authFlow(AuthFlowType.ADMIN_NO_SRP_AUTH)
-                    .userPoolId(System.getenv("COGNITO_ID"))
-                    .clientId(System.getenv("CLIENT_ID"))
-                    .authParameters(Map.of(
-                            "USERNAME", email,
-                            "PASSWORD", password
-                    ))
-                    .build();
-
-            AdminInitiateAuthResponse authResponse = cognitoClient.adminInitiateAuth(authRequest);
-
-            if (authResponse.authenticationResult() == null) {
-                context.getLogger().log("Authentication result is null for user: " + email);
+            if (authResult == null) {
+                LOG.warn("Authentication result is null for user: {}", email);
                 return errorResponse(400, "Authentication failed.", context);
             }
 
-            context.getLogger().log("Login successful for email: " + email);
-            Map<String, String> message = Map.of(
-                    "message", "Login successful",
-                    "accessToken", authResponse.authenticationResult().accessToken());
-
+            LOG.info("Login successful for email: {}", email);
+            Credentials.Session session = new Credentials.Session("Login successful", authResult.accessToken());
 
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
                     .withHeaders(Map.of("Content-Type", "application/json"))
-                    .withBody(objectMapper.writeValueAsString( message));
+                    .withBody(modelCodec.write(session));
 
         } catch (NotAuthorizedException e) {
-            context.getLogger().log("Signin error: Invalid credentials for email - " + email);
+            LOG.info("Signin error: Invalid credentials for email - {}", email);
             return errorResponse(400, "Invalid credentials.", context);
         } catch (UserNotFoundException e) {
-            context.getLogger().log("Signin error: User does not exist - " + email);
+            LOG.info("Signin error: User does not exist - {}", email);
             return errorResponse(400, "User does not exist.", context);
         } catch (Exception e) {
-            context.getLogger().log("Signin error: " + e.getMessage());
+            LOG.error("Signin error", e);
             return errorResponse(500, "Signin error: " + e.getMessage(), context);
         }
     }
 
-    private boolean isTokenValid(String token, Context context) {
+    private TokenVerifier.Identity verifiedIdentity(String token) {
         try {
-            GetUserRequest request = GetUserRequest.builder()
-                    .accessToken(token)
-                    .build();
-            cognitoClient.getUser(request);
-            return true;
-        } catch (NotAuthorizedException | InvalidParameterException e) {
-            context.getLogger().log("Invalid Token: " + e.getMessage());
-            return false;
+            return tokenVerifier.verify(token);
+        } catch (TokenVerifier.InvalidTokenException e) {
+            LOG.info("Invalid Token: {}", e.getMessage());
+            return null;
         }
     }
 
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
 
-    private boolean isValidEmail(String email) {
-        return Pattern.compile(EMAIL_REGEX).matcher(email).matches();
+    /**
+     * Limiter from the environment; unlimited when the variables are unset, e.g. outside Lambda.
+     */
+    private static RateLimiter rateLimiter(String burst, String perSecond) {
+        if (burst == null || burst.isBlank() || perSecond == null || perSecond.isBlank()) {
+            return RateLimiter.unlimited();
+        }
+        try {
+            return new RateLimiter(Integer.parseInt(burst.trim()), Double.parseDouble(perSecond.trim()));
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid RATE_LIMIT_BURST/RATE_LIMIT_PER_SECOND {}/{}, not rate limiting", burst, perSecond);
+            return RateLimiter.unlimited();
+        }
     }
 
-    private boolean isValidPassword(String password) {
-        return Pattern.compile(PASSWORD_REGEX).matcher(password).matches();
+    private static int compressionMinBytes(String value) {
+        if (value == null || value.isBlank()) {
+            return ResponseCompression.DEFAULT_MIN_BYTES;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid COMPRESSION_MIN_BYTES {}, using {}", value, ResponseCompression.DEFAULT_MIN_BYTES);
+            return ResponseCompression.DEFAULT_MIN_BYTES;
+        }
+    }
+
+    public static boolean isValidEmail(String email) {
+        return EMAIL_PATTERN.matcher(email).matches();
     }
 
-    private APIGatewayProxyResponseEvent invalidMethodResponse(Context context) {
-        context.getLogger().log("Error: Method Not Allowed");
-        return errorResponse(400, "Method Not Allowed", context);
+    public static boolean isValidPassword(String password) {
+        return PASSWORD_PATTERN.matcher(password).matches();
     }
 
     private APIGatewayProxyResponseEvent successResponse(Object data, Context context) throws Exception {
-        context.getLogger().log("Response: " + data);
+        LOG.debug("Response: {}", data);
         return new APIGatewayProxyResponseEvent()
                 .withStatusCode(200)
                 .withHeaders(Map.of("Content-Type", "application/json"))
@@ -654,50 +765,24 @@ public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, A
     }
 
     private APIGatewayProxyResponseEvent errorResponse(int statusCode, String message, Context context) {
-        context.getLogger().log("Error response: " + message);
+        LOG.info("Error response {}: {}", statusCode, message);
         return new APIGatewayProxyResponseEvent()
                 .withStatusCode(statusCode)
                 .withHeaders(Map.of("Content-Type", "application/json"))
                 .withBody("{\"error\": \"" + message + "\"}");
     }
 
-    private boolean isTableAlreadyReserved(String tableNumber, String date, String slotTimeStart, String slotTimeEnd, Context context) {
-        context.getLogger().log("Reservation Post: isTableAlreadyReserved method with table Number: " + tableNumber);
-        String tableName = System.getenv("reservation");
-
-        Map<String, String> expressionAttributeNames = new HashMap<>();
-        expressionAttributeNames.put("#date", "date"); // Escaping the reserved keyword
-
-        Map<String, AttributeValue> expressionValues = new HashMap<>();
-        expressionValues.put(":tableNumber", AttributeValue.builder().n(tableNumber).build());
-        expressionValues.put(":date", AttributeValue.builder().s(date).build());
-        expressionValues.put(":slotStart", AttributeValue.builder().s(slotTimeStart).build());
-        expressionValues.put(":slotEnd", AttributeValue.builder().s(slotTimeEnd).build());
-
-        String filterExpression = "tableNumber = :tableNumber AND #date = :date AND " +
-                "(slotTimeStart < :slotEnd AND slotTimeEnd > :slotStart)";
-
-        ScanRequest scanRequest = ScanRequest.builder()
-                .tableName(tableName)
-                .filterExpression(filterExpression)
-                .expressionAttributeNames(expressionAttributeNames) // Use escaped attribute name
-                .expressionAttributeValues(expressionValues)
-                .build();
-
-        ScanResponse scanResponse = dynamoDbClient.scan(scanRequest);
-        return !scanResponse.items().isEmpty();
+    private APIGatewayProxyResponseEvent errorResponse(int statusCode, String message, String field, Context context) {
+        LOG.info("Error response {}: {}", statusCode, message);
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody("{\"error\": \"" + message + "\", \"field\": \"" + field + "\"}");
     }
 
-
     private boolean doesTableExist(String tableNumber, Context context) {
-        context.getLogger().log("Checking if a table with tableNumber " + tableNumber + " exists. Table ids: "+ tablesIds.toString() );
-
-        for(String number: tablesIds){
-            if(number.equals(tableNumber)){
-                return true;
-            }
-        }
-        return false;
+        LOG.debug("Checking if table {} exists. Known tables: {}", tableNumber, tableRegistry.size());
+        return tableRegistry.exists(tableNumber);
     }
 
 
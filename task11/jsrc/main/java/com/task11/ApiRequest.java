@@ -0,0 +1,130 @@
+package com.task11;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Incoming API Gateway event plus what the pipeline learned about it: the matched route,
+ * path parameters, the verified bearer token and the parsed body.
+ */
+public class ApiRequest {
+
+    private final APIGatewayProxyRequestEvent event;
+    private final Context context;
+    private final boolean synthetic;
+    private Router.Route route;
+    private Map<String, String> pathParameters = Collections.emptyMap();
+    private String token;
+    private String caller;
+    private RequestBody body;
+
+    public ApiRequest(APIGatewayProxyRequestEvent event, Context context) {
+        this(event, context, false);
+    }
+
+    private ApiRequest(APIGatewayProxyRequestEvent event, Context context, boolean synthetic) {
+        this.event = event;
+        this.context = context;
+        this.synthetic = synthetic;
+    }
+
+    /**
+     * A request the handler sends itself, e.g. while priming, rather than one from a caller.
+     */
+    static ApiRequest synthetic(APIGatewayProxyRequestEvent event, Context context) {
+        return new ApiRequest(event, context, true);
+    }
+
+    public APIGatewayProxyRequestEvent getEvent() {
+        return event;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
+    public String getPath() {
+        return event.getPath();
+    }
+
+    public String getHttpMethod() {
+        return event.getHttpMethod();
+    }
+
+    public String getHeader(String name) {
+        Map<String, String> headers = event.getHeaders();
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public Map<String, String> getQueryParameters() {
+        return event.getQueryStringParameters();
+    }
+
+    public Router.Route getRoute() {
+        return route;
+    }
+
+    public String getPathParameter(String name) {
+        return pathParameters.get(name);
+    }
+
+    void setMatch(Router.Match match) {
+        this.route = match.getRoute();
+        this.pathParameters = match.getPathParameters();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Who sent the request, for rate limiting: the token's subject on authenticated routes, the source IP
+     * on public ones.
+     */
+    public String getCaller() {
+        return caller;
+    }
+
+    void setCaller(String caller) {
+        this.caller = caller;
+    }
+
+    public String getSourceIp() {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = event.getRequestContext();
+        if (requestContext == null || requestContext.getIdentity() == null) {
+            return null;
+        }
+        return requestContext.getIdentity().getSourceIp();
+    }
+
+    public <T extends RequestBody> T getBody(Class<T> type) {
+        return type.cast(body);
+    }
+
+    void setBody(RequestBody body) {
+        this.body = body;
+    }
+}
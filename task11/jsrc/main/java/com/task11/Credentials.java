@@ -0,0 +1,57 @@
+package com.task11;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Email and password posted to {@code /signup} and {@code /signin}.
+ */
+public final class Credentials implements RequestBody {
+
+    private final String email;
+    private final String password;
+
+    @JsonCreator
+    public Credentials(@JsonProperty("email") String email,
+                       @JsonProperty("password") String password) {
+        this.email = email;
+        this.password = password;
+    }
+
+    @Override
+    public void validate() {
+        ValidationException.require("email", email);
+        ValidationException.require("password", password);
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Response to a successful {@code /signin}.
+     */
+    public static final class Session {
+        private final String message;
+        private final String accessToken;
+
+        public Session(String message, String accessToken) {
+            this.message = message;
+            this.accessToken = accessToken;
+        }
+
+        @JsonProperty("message")
+        public String getMessage() {
+            return message;
+        }
+
+        @JsonProperty("accessToken")
+        public String getAccessToken() {
+            return accessToken;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.task11;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the signing keys of the user pool. The key set is fetched once, kept for {@code ttl}
+ * and re-fetched early when a token refers to a key id we have not seen yet (key rotation),
+ * but never more often than {@code minRefreshInterval}.
+ *
+ * <p>When a re-fetch fails the previous key set keeps being served, and the next attempt waits
+ * a backoff that doubles from one second up to {@code minRefreshInterval}, so an unreachable
+ * endpoint neither rejects every token nor gets hit by every request.
+ */
+public class JwksCache {
+
+    /** Source of the raw JWKS document; the HTTP one is used in Lambda, a local stub can be plugged in. */
+    @FunctionalInterface
+    public interface JwksSource {
+        String fetch() throws IOException;
+
+        static JwksSource forUserPool(String region, String userPoolId) {
+            return http(URI.create(TokenVerifier.issuer(region, userPoolId) + "/.well-known/jwks.json"));
+        }
+
+        static JwksSource http(URI jwksUri) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(2))
+                    .build();
+            return () -> {
+                HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                        .timeout(Duration.ofSeconds(3))
+                        .GET()
+                        .build();
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 200) {
+                        throw new IOException("Failed to fetch JWKS: HTTP " + response.statusCode());
+                    }
+                    return response.body();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while fetching JWKS", e);
+                }
+            };
+        }
+    }
+
+    private static final Log LOG = Log.get(JwksCache.class);
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+    private final JwksSource source;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration minRefreshInterval;
+
+    private volatile KeySet keySet;
+    // guarded by this
+    private int failedFetches;
+    private long nextFetchMillis;
+    private IOException lastFetchError;
+
+    public JwksCache(JwksSource source, ObjectMapper objectMapper, Clock clock, Duration ttl, Duration minRefreshInterval) {
+        this.source = source;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.minRefreshInterval = minRefreshInterval;
+    }
+
+    public JwksCache(JwksSource source, ObjectMapper objectMapper) {
+        this(source, objectMapper, Clock.systemUTC(), Duration.ofHours(1), Duration.ofMinutes(1));
+    }
+
+    /**
+     * Returns the key for {@code kid}, or {@code null} when the pool does not publish it even after a refresh.
+     */
+    public PublicKey getKey(String kid) throws IOException {
+        long now = clock.millis();
+        KeySet current = keySet;
+        if (current == null || current.age(now) >= ttl.toMillis()) {
+            return refresh(now, current).keys.get(kid);
+        }
+        PublicKey key = current.keys.get(kid);
+        if (key == null && current.age(now) >= minRefreshInterval.toMillis()) {
+            key = refresh(now, current).keys.get(kid);
+        }
+        return key;
+    }
+
+    private synchronized KeySet refresh(long now, KeySet seen) throws IOException {
+        // Another thread may have refreshed while we were waiting for the lock.
+        if (keySet != seen) {
+            return keySet;
+        }
+        if (now < nextFetchMillis) {
+            return staleOrThrow(seen);
+        }
+        try {
+            keySet = new KeySet(parse(source.fetch()), now);
+        } catch (IOException e) {
+            failedFetches++;
+            long backoff = INITIAL_BACKOFF_MILLIS << Math.min(failedFetches - 1, 16);
+            nextFetchMillis = now + Math.max(INITIAL_BACKOFF_MILLIS, Math.min(backoff, minRefreshInterval.toMillis()));
+            lastFetchError = e;
+            LOG.warn("JWKS fetch failed ({} in a row): {}", failedFetches, e.getMessage());
+            return staleOrThrow(seen);
+        }
+        failedFetches = 0;
+        nextFetchMillis = 0;
+        lastFetchError = null;
+        return keySet;
+    }
+
+    private KeySet staleOrThrow(KeySet stale) throws IOException {
+        if (stale == null) {
+            throw new IOException("JWKS unavailable: " + lastFetchError.getMessage(), lastFetchError);
+        }
+        return stale;
+    }
+
+    private Map<String, PublicKey> parse(String jwks) throws IOException {
+        JsonNode keysNode = objectMapper.readTree(jwks).path("keys");
+        Map<String, PublicKey> parsed = new HashMap<>();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            for (JsonNode jwk : keysNode) {
+                if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) {
+                    continue;
+                }
+                Base64.Decoder decoder = Base64.getUrlDecoder();
+                BigInteger modulus = new BigInteger(1, decoder.decode(jwk.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, decoder.decode(jwk.path("e").asText()));
+                parsed.put(jwk.get("kid").asText(), keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("Invalid JWKS document: " + e.getMessage(), e);
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private static final class KeySet {
+        private final Map<String, PublicKey> keys;
+        private final long fetchedAtMillis;
+
+        private KeySet(Map<String, PublicKey> keys, long fetchedAtMillis) {
+            this.keys = keys;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+
+        private long age(long now) {
+            return now - fetchedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.task11;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.util.List;
+
+/**
+ * One step of the request pipeline. A middleware either answers the request itself or passes it on with {@code next.proceed}.
+ */
+@FunctionalInterface
+public interface Middleware {
+
+    @FunctionalInterface
+    interface Chain {
+        APIGatewayProxyResponseEvent proceed(ApiRequest request) throws Exception;
+    }
+
+    APIGatewayProxyResponseEvent handle(ApiRequest request, Chain next) throws Exception;
+
+    static Chain compose(List<Middleware> middlewares, Chain terminal) {
+        Chain chain = terminal;
+        for (int i = middlewares.size() - 1; i >= 0; i--) {
+            Middleware middleware = middlewares.get(i);
+            Chain next = chain;
+            chain = request -> middleware.handle(request, next);
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,116 @@
+package com.task11;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serialized {@code GET /tables/{id}} bodies with their strong ETags, kept per container. Entries are
+ * dropped when the same id is written through this container and expire after {@code ttl}, which bounds
+ * how long a change made through another container can stay invisible.
+ */
+public class TableCache {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    public static final class CachedBody {
+        private final String body;
+        private final String etag;
+        private final long loadedAtMillis;
+
+        private CachedBody(String body, String etag, long loadedAtMillis) {
+            this.body = body;
+            this.etag = etag;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Whether an {@code If-None-Match} header names this entry ({@code *}, or one of a list of
+         * possibly weak tags).
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Clock clock;
+    private final Duration ttl;
+    private final Map<String, CachedBody> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public TableCache(Clock clock, Duration ttl) {
+        this.clock = clock;
+        this.ttl = ttl;
+    }
+
+    public TableCache() {
+        this(Clock.systemUTC(), Duration.ofSeconds(60));
+    }
+
+    /**
+     * @return the cached entry, or {@code null} when there is none or it expired
+     */
+    public CachedBody get(String id) {
+        synchronized (entries) {
+            CachedBody entry = entries.get(id);
+            if (entry != null && clock.millis() - entry.loadedAtMillis >= ttl.toMillis()) {
+                entries.remove(id);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    public CachedBody put(String id, String body) {
+        CachedBody entry = new CachedBody(body, etag(body), clock.millis());
+        synchronized (entries) {
+            entries.put(id, entry);
+        }
+        return entry;
+    }
+
+    public void invalidate(String id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    private static String etag(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
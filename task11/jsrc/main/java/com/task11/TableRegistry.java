@@ -0,0 +1,140 @@
+package com.task11;
+
+import com.shared.Log;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Set of existing table numbers, loaded from the tables table when the container starts and kept in
+ * memory. Lookups are always answered from the set in hand. When it is older than {@code ttl}, or on a miss
+ * when it is older than {@code missReloadInterval} (a table created by another container), one reload is
+ * started on a background thread and later lookups see its result. Tables this container creates are added
+ * through {@link #register} straight away.
+ */
+public class TableRegistry {
+
+    private static final Log LOG = Log.get(TableRegistry.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration missReloadInterval;
+
+    private volatile Set<String> tableNumbers = ConcurrentHashMap.newKeySet();
+    private volatile long loadedAtMillis;
+    private volatile boolean loaded;
+    private volatile long refreshStartedAtMillis;
+    // registered numbers a reload may have scanned too early to see
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-registry-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TableRegistry(DynamoDbClient dynamoDbClient, String tableName, Clock clock, Duration ttl, Duration missReloadInterval) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.missReloadInterval = missReloadInterval;
+    }
+
+    public TableRegistry(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, Clock.systemUTC(), Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    public boolean exists(String tableNumber) {
+        if (!loaded) {
+            // only when the load at start-up failed: there is no set to answer from yet
+            loadOnce();
+        }
+        boolean found = tableNumbers.contains(tableNumber);
+        long now = clock.millis();
+        long age = now - loadedAtMillis;
+        if (age >= ttl.toMillis() || !found && age >= missReloadInterval.toMillis()) {
+            refreshInBackground(now);
+        }
+        return found;
+    }
+
+    private synchronized void loadOnce() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * Starts a reload unless one is running or started less than {@code missReloadInterval} ago. A failed
+     * reload keeps the current set and is retried on a later lookup.
+     */
+    private void refreshInBackground(long now) {
+        if (now - refreshStartedAtMillis < missReloadInterval.toMillis() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshStartedAtMillis = now;
+        refresher.execute(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                LOG.warn("Error reloading table registry: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Adds a table this container has just created. It is also kept aside until a reload has seen it, so
+     * a reload that scanned before the write doesn't drop it; the lock only covers the swap, not the scan.
+     */
+    public synchronized void register(String tableNumber) {
+        registered.add(tableNumber);
+        tableNumbers.add(tableNumber);
+    }
+
+    public void reload() {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanResponse page = dynamoDbClient.scan(ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression("#number")
+                    .expressionAttributeNames(Map.of("#number", "number"))
+                    .exclusiveStartKey(startKey)
+                    .build());
+            for (Map<String, AttributeValue> item : page.items()) {
+                AttributeValue number = item.get("number");
+                if (number != null && number.n() != null) {
+                    numbers.add(number.n());
+                }
+            }
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+        } while (startKey != null);
+
+        synchronized (this) {
+            registered.removeAll(numbers);
+            numbers.addAll(registered);
+            tableNumbers = numbers;
+            loadedAtMillis = clock.millis();
+            loaded = true;
+        }
+    }
+
+    public int size() {
+        return tableNumbers.size();
+    }
+}
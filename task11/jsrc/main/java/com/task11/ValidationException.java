@@ -0,0 +1,26 @@
+package com.task11;
+
+/**
+ * A 400 caused by one request body field; the field name is returned to the client next to the error message.
+ */
+public class ValidationException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String field;
+
+    public ValidationException(String field, String message) {
+        super(400, message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    static void require(String field, Object value) {
+        if (value == null || (value instanceof String && ((String) value).isBlank())) {
+            throw new ValidationException(field, "Missing required field: " + field);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.task12;
+
+/**
+ * Ends request processing with the given status; turned into an error response by the error-mapping middleware.
+ */
+public class ApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public ApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
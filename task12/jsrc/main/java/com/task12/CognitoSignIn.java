@@ -0,0 +1,111 @@
+package com.task12;
+
+import com.shared.Log;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminConfirmSignUpRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminInitiateAuthRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthFlowType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthenticationResultType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotConfirmedException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Signs users in with as few Cognito calls as possible. Authentication is tried first, and the user is
+ * confirmed only when Cognito answers {@link UserNotConfirmedException}, so a confirmed user costs one call.
+ * Users signed up through this container are remembered in a bounded LRU until their first sign-in and are
+ * confirmed before the first attempt (two calls instead of three).
+ */
+public class CognitoSignIn {
+
+    private static final Log LOG = Log.get(CognitoSignIn.class);
+    private static final int UNCONFIRMED_CACHE_SIZE = 4096;
+
+    private final CognitoIdentityProviderClient cognitoClient;
+    private final String userPoolId;
+    private final String clientId;
+    private final Set<String> unconfirmedUsers = Collections.newSetFromMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > UNCONFIRMED_CACHE_SIZE;
+        }
+    });
+
+    public CognitoSignIn(CognitoIdentityProviderClient cognitoClient, String userPoolId, String clientId) {
+        this.cognitoClient = cognitoClient;
+        this.userPoolId = userPoolId;
+        this.clientId = clientId;
+    }
+
+    /**
+     * Records a user that was just signed up and is not confirmed yet.
+     */
+    public void signedUp(String email) {
+        synchronized (unconfirmedUsers) {
+            unconfirmedUsers.add(email);
+        }
+    }
+
+    /**
+     * @return the authentication result, or {@code null} when Cognito answered with a challenge instead
+     * @throws software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException for a wrong password
+     * @throws software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotFoundException for an unknown user
+     */
+    public AuthenticationResultType signIn(String email, String password) {
+        boolean unconfirmed;
+        synchronized (unconfirmedUsers) {
+            unconfirmed = unconfirmedUsers.contains(email);
+        }
+        if (unconfirmed) {
+            try {
+                confirm(email);
+            } catch (RuntimeException e) {
+                // Most likely confirmed elsewhere in the meantime; the regular path below sorts it out.
+                LOG.warn("Early confirmation of {} failed: {}", email, e.getMessage());
+            }
+        }
+
+        AuthenticationResultType result;
+        try {
+            result = authenticate(email, password);
+        } catch (UserNotConfirmedException e) {
+            LOG.info("User is not confirmed: {}. Confirming now...", email);
+            try {
+                confirm(email);
+            } catch (RuntimeException confirmError) {
+                LOG.error("Error confirming user {}", email, confirmError);
+                throw new RuntimeException("Failed to confirm user: " + email, confirmError);
+            }
+            result = authenticate(email, password);
+        }
+        if (unconfirmed) {
+            synchronized (unconfirmedUsers) {
+                unconfirmedUsers.remove(email);
+            }
+        }
+        return result;
+    }
+
+    private AuthenticationResultType authenticate(String email, String password) {
+        return cognitoClient.adminInitiateAuth(AdminInitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.ADMIN_NO_SRP_AUTH)
+                .userPoolId(userPoolId)
+                .clientId(clientId)
+                .authParameters(Map.of(
+                        "USERNAME", email,
+                        "PASSWORD", password
+                ))
+                .build()).authenticationResult();
+    }
+
+    private void confirm(String email) {
+        cognitoClient.adminConfirmSignUp(AdminConfirmSignUpRequest.builder()
+                .userPoolId(userPoolId)
+                .username(email)
+                .build());
+        LOG.info("User confirmed successfully: {}", email);
+    }
+}
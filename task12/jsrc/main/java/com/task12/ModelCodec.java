@@ -0,0 +1,86 @@
+package com.task12;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds request bodies to the booking models and writes response models. Readers and writers are built
+ * once per container, so per request Jackson only walks the prebuilt (de)serializers.
+ */
+public class ModelCodec {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public ModelCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Class<?> type : List.of(Table.class, Reservation.class, ReservationBatch.class, Credentials.class)) {
+            readers.put(type, readerFor(type));
+        }
+        for (Class<?> type : List.of(Table.class, Table.Created.class, Reservation.Created.class,
+                ReservationBatch.Response.class, Credentials.Session.class)) {
+            writers.put(type, objectMapper.writerFor(type));
+        }
+    }
+
+    /**
+     * @throws ValidationException when a field has the wrong type or {@link RequestBody#validate()} rejects the body
+     * @throws ApiException 400 when the body is not JSON
+     */
+    public <T extends RequestBody> T read(Class<T> type, String json) {
+        T body;
+        try {
+            body = readers.computeIfAbsent(type, this::readerFor).readValue(json);
+        } catch (MismatchedInputException e) {
+            String field = fieldName(e);
+            if (field == null) {
+                throw new ApiException(400, "Invalid JSON body");
+            }
+            throw new ValidationException(field, "Invalid value for field: " + field);
+        } catch (JsonProcessingException e) {
+            throw new ApiException(400, "Invalid JSON body");
+        }
+        if (body == null) {
+            throw new ApiException(400, "Request body is required");
+        }
+        body.validate();
+        return body;
+    }
+
+    public String write(Object value) throws JsonProcessingException {
+        return writers.computeIfAbsent(value.getClass(), objectMapper::writerFor).writeValueAsString(value);
+    }
+
+    private ObjectReader readerFor(Class<?> type) {
+        // clients may send fields the models don't use
+        return objectMapper.readerFor(type).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Path of the offending field, e.g. {@code places} or {@code reservations[2].tableNumber}.
+     */
+    private static String fieldName(JsonMappingException e) {
+        StringBuilder field = new StringBuilder();
+        for (JsonMappingException.Reference reference : e.getPath()) {
+            if (reference.getFieldName() != null) {
+                if (field.length() > 0) {
+                    field.append('.');
+                }
+                field.append(reference.getFieldName());
+            } else if (reference.getIndex() >= 0) {
+                field.append('[').append(reference.getIndex()).append(']');
+            }
+        }
+        return field.length() == 0 ? null : field.toString();
+    }
+}
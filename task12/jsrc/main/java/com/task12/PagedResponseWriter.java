@@ -0,0 +1,192 @@
+package com.task12;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one page of DynamoDB items as {@code {"<field>": [...], "nextToken": "..."}}.
+ * Items go to the JSON generator as soon as a DynamoDB page arrives, and {@code nextToken}
+ * is an opaque, URL-safe encoding of the {@code LastEvaluatedKey} to continue from.
+ */
+public class PagedResponseWriter {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    @FunctionalInterface
+    public interface ItemWriter {
+        void write(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface PageSource {
+        Page fetch(Map<String, AttributeValue> exclusiveStartKey, int limit);
+
+        static PageSource scan(DynamoDbClient dynamoDbClient, ScanRequest request) {
+            return (startKey, limit) -> {
+                ScanResponse response = dynamoDbClient.scan(request.toBuilder()
+                        .exclusiveStartKey(startKey)
+                        .limit(limit)
+                        .build());
+                return new Page(response.items(), response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+            };
+        }
+
+        static PageSource query(DynamoDbClient dynamoDbClient, QueryRequest request) {
+            return (startKey, limit) -> {
+                QueryResponse response = dynamoDbClient.query(request.toBuilder()
+                        .exclusiveStartKey(startKey)
+                        .limit(limit)
+                        .build());
+                return new Page(response.items(), response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+            };
+        }
+    }
+
+    public static final class Page {
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey == null || lastEvaluatedKey.isEmpty() ? null : lastEvaluatedKey;
+        }
+    }
+
+    public static class InvalidPageRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidPageRequestException(String message) {
+            super(message);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public PagedResponseWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public static int parseLimit(Map<String, String> queryParameters) {
+        String value = queryParameters == null ? null : queryParameters.get("limit");
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new InvalidPageRequestException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new InvalidPageRequestException("limit must be an integer");
+        }
+    }
+
+    /**
+     * Copies a DynamoDB number to the JSON as it is stored instead of parsing it first: {@code N} values are
+     * always valid JSON numbers.
+     */
+    public static void writeNumberField(JsonGenerator generator, String name, AttributeValue value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeNumber(value.n());
+    }
+
+    public static String nextToken(Map<String, String> queryParameters) {
+        return queryParameters == null ? null : queryParameters.get("nextToken");
+    }
+
+    /**
+     * Reads up to {@code limit} items starting after {@code nextToken} and returns the JSON body.
+     * DynamoDB may return short pages (filter expressions, 1 MB page cap), so pages are read until
+     * the limit is reached or the source is exhausted.
+     */
+    public String write(String field, int limit, String nextToken, PageSource source, ItemWriter itemWriter) throws IOException {
+        Map<String, AttributeValue> startKey = decodeToken(nextToken);
+        StringWriter body = new StringWriter(256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(field);
+
+            int written = 0;
+            do {
+                Page page = source.fetch(startKey, limit - written);
+                for (Map<String, AttributeValue> item : page.items) {
+                    itemWriter.write(item, generator);
+                    written++;
+                }
+                startKey = page.lastEvaluatedKey;
+            } while (startKey != null && written < limit);
+
+            generator.writeEndArray();
+            if (startKey != null) {
+                generator.writeStringField("nextToken", encodeToken(startKey));
+            }
+            generator.writeEndObject();
+        }
+        return body.toString();
+    }
+
+    private String encodeToken(Map<String, AttributeValue> key) throws IOException {
+        StringWriter json = new StringWriter(64);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, AttributeValue> entry : key.entrySet()) {
+                AttributeValue value = entry.getValue();
+                generator.writeObjectFieldStart(entry.getKey());
+                if (value.s() != null) {
+                    generator.writeStringField("S", value.s());
+                } else {
+                    generator.writeStringField("N", value.n());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, AttributeValue> decodeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(Base64.getUrlDecoder().decode(token));
+            Map<String, AttributeValue> key = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                if (value.has("S")) {
+                    key.put(field.getKey(), AttributeValue.builder().s(value.get("S").asText()).build());
+                } else if (value.has("N")) {
+                    key.put(field.getKey(), AttributeValue.builder().n(value.get("N").asText()).build());
+                } else {
+                    throw new InvalidPageRequestException("Invalid nextToken");
+                }
+            }
+            if (key.isEmpty()) {
+                throw new InvalidPageRequestException("Invalid nextToken");
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Invalid nextToken");
+        }
+    }
+}
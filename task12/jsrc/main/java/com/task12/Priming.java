@@ -0,0 +1,149 @@
+package com.task12;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import com.shared.Log;
+import org.crac.Resource;
+
+import java.util.List;
+
+/**
+ * Warm-up steps that run before the first real request: either during init (when {@code PRIMING_ENABLED}
+ * is {@code true}) or right before a SnapStart/CRaC checkpoint, so the snapshot already holds loaded classes,
+ * Jackson (de)serializers, SDK marshallers and open connections. A failing step is logged and skipped; priming
+ * never fails the container.
+ */
+public class Priming implements Resource {
+
+    private static final Log LOG = Log.get(Priming.class);
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static final class Step {
+        private final String name;
+        private final Action action;
+
+        private Step(String name, Action action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    public static Step step(String name, Action action) {
+        return new Step(name, action);
+    }
+
+    private final List<Step> steps;
+    private final List<Step> afterRestore;
+    private volatile boolean primed;
+
+    public Priming(List<Step> steps, List<Step> afterRestore) {
+        this.steps = steps;
+        this.afterRestore = afterRestore;
+    }
+
+    /**
+     * Runs every step once and returns the time it took in milliseconds; later calls return 0.
+     */
+    public synchronized long prime() {
+        if (primed) {
+            return 0;
+        }
+        long elapsedMillis = runAll("Priming", steps);
+        primed = true;
+        return elapsedMillis;
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        prime();
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        runAll("Restore", afterRestore);
+    }
+
+    private static long runAll(String phase, List<Step> steps) {
+        long startedAt = System.nanoTime();
+        for (Step step : steps) {
+            long stepStartedAt = System.nanoTime();
+            try {
+                step.action.run();
+                LOG.info("{} step {} took {} ms", phase, step.name, (System.nanoTime() - stepStartedAt) / 1_000_000);
+            } catch (Exception e) {
+                LOG.warn("{} step {} failed", phase, step.name, e);
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        LOG.info("{} finished in {} ms", phase, elapsedMillis);
+        return elapsedMillis;
+    }
+
+    /**
+     * Lambda context for synthetic requests sent through the pipeline while priming.
+     */
+    static final class SyntheticContext implements Context {
+
+        @Override
+        public String getAwsRequestId() {
+            return "priming";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return null;
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 0;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return LambdaRuntime.getLogger();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.task12;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by caller and route: every key may send {@code burst} requests at once and then
+ * {@code refillPerSecond} per second. Buckets of the least recently seen keys are dropped beyond
+ * {@code maxKeys}, which only ever gives an idle caller a full bucket again.
+ *
+ * <p>The buckets live in the handler instance, so they limit what one caller can push through one Lambda
+ * execution environment; API Gateway usage plans remain the place for limits across all instances. With a
+ * {@code refillPerSecond} of 0 nothing is limited, but requests are still counted.
+ */
+public class RateLimiter {
+
+    public static final int DEFAULT_MAX_KEYS = 10_000;
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private final double burst;
+    private final double refillPerNano;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bucket> buckets;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimiter(int burst, double refillPerSecond, int maxKeys, LongSupplier nanoClock) {
+        this.burst = burst;
+        this.refillPerNano = refillPerSecond / 1e9;
+        this.nanoClock = nanoClock;
+        this.buckets = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    public RateLimiter(int burst, double refillPerSecond) {
+        this(burst, refillPerSecond, DEFAULT_MAX_KEYS, System::nanoTime);
+    }
+
+    public static RateLimiter unlimited() {
+        return new RateLimiter(0, 0);
+    }
+
+    public boolean isEnabled() {
+        return refillPerNano > 0;
+    }
+
+    /**
+     * Takes a token from the key's bucket. Returns 0 when the request is admitted, otherwise the nanoseconds
+     * until the bucket holds a token again.
+     */
+    public long tryAcquire(String key) {
+        if (!isEnabled()) {
+            admitted.increment();
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        long waitNanos;
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(burst, now);
+                buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * refillPerNano);
+                bucket.refilledAt = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                waitNanos = 0;
+            } else {
+                waitNanos = Math.max(1, (long) Math.ceil((1 - bucket.tokens) / refillPerNano));
+            }
+        }
+        (waitNanos == 0 ? admitted : rejected).increment();
+        return waitNanos;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,12 @@
+package com.task12;
+
+/**
+ * A typed request body. {@link #validate()} runs right after binding and reports the first invalid field.
+ */
+public interface RequestBody {
+
+    /**
+     * @throws ValidationException naming the offending field
+     */
+    void validate();
+}
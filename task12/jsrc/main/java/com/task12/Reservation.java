@@ -0,0 +1,121 @@
+package com.task12;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A reservation as posted to {@code /reservations}.
+ */
+public final class Reservation implements RequestBody {
+
+    // zero-padded 24-hour times compare correctly as strings, which the slot ledger relies on
+    private static final Pattern TIME_PATTERN = Pattern.compile("([01][0-9]|2[0-3]):[0-5][0-9]");
+
+    private final Integer tableNumber;
+    private final String clientName;
+    private final String phoneNumber;
+    private final String date;
+    private final String slotTimeStart;
+    private final String slotTimeEnd;
+
+    @JsonCreator
+    public Reservation(@JsonProperty("tableNumber") Integer tableNumber,
+                       @JsonProperty("clientName") String clientName,
+                       @JsonProperty("phoneNumber") String phoneNumber,
+                       @JsonProperty("date") String date,
+                       @JsonProperty("slotTimeStart") String slotTimeStart,
+                       @JsonProperty("slotTimeEnd") String slotTimeEnd) {
+        this.tableNumber = tableNumber;
+        this.clientName = clientName;
+        this.phoneNumber = phoneNumber;
+        this.date = date;
+        this.slotTimeStart = slotTimeStart;
+        this.slotTimeEnd = slotTimeEnd;
+    }
+
+    public Map<String, AttributeValue> toItem(String reservationId) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", AttributeValue.builder().s(reservationId).build());
+        item.put("reservationId", AttributeValue.builder().s(reservationId).build());
+        item.put("tableNumber", AttributeValue.builder().n(String.valueOf(tableNumber)).build());
+        item.put("clientName", AttributeValue.builder().s(clientName).build());
+        item.put("phoneNumber", AttributeValue.builder().s(phoneNumber).build());
+        item.put("date", AttributeValue.builder().s(date).build());
+        item.put("slotTimeStart", AttributeValue.builder().s(slotTimeStart).build());
+        item.put("slotTimeEnd", AttributeValue.builder().s(slotTimeEnd).build());
+        return item;
+    }
+
+    @Override
+    public void validate() {
+        ValidationException.require("tableNumber", tableNumber);
+        ValidationException.require("clientName", clientName);
+        ValidationException.require("phoneNumber", phoneNumber);
+        ValidationException.require("date", date);
+        ValidationException.require("slotTimeStart", slotTimeStart);
+        ValidationException.require("slotTimeEnd", slotTimeEnd);
+        requireTime("slotTimeStart", slotTimeStart);
+        requireTime("slotTimeEnd", slotTimeEnd);
+        if (slotTimeStart.compareTo(slotTimeEnd) >= 0) {
+            // the slot ledger's overlap check assumes start < end
+            throw new ValidationException("slotTimeEnd", "slotTimeEnd must be after slotTimeStart");
+        }
+    }
+
+    private static void requireTime(String field, String value) {
+        if (!TIME_PATTERN.matcher(value).matches()) {
+            throw new ValidationException(field, field + " must be a time in HH:mm format");
+        }
+    }
+
+    @JsonProperty("tableNumber")
+    public Integer getTableNumber() {
+        return tableNumber;
+    }
+
+    @JsonProperty("clientName")
+    public String getClientName() {
+        return clientName;
+    }
+
+    @JsonProperty("phoneNumber")
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    @JsonProperty("date")
+    public String getDate() {
+        return date;
+    }
+
+    @JsonProperty("slotTimeStart")
+    public String getSlotTimeStart() {
+        return slotTimeStart;
+    }
+
+    @JsonProperty("slotTimeEnd")
+    public String getSlotTimeEnd() {
+        return slotTimeEnd;
+    }
+
+    /**
+     * Response to {@code POST /reservations}.
+     */
+    public static final class Created {
+        private final String reservationId;
+
+        public Created(String reservationId) {
+            this.reservationId = reservationId;
+        }
+
+        @JsonProperty("reservationId")
+        public String getReservationId() {
+            return reservationId;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.task12;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reservations posted together to {@code /reservations/batch}; they are stored all or none.
+ */
+public final class ReservationBatch implements RequestBody {
+
+    private final List<Reservation> reservations;
+
+    @JsonCreator
+    public ReservationBatch(@JsonProperty("reservations") List<Reservation> reservations) {
+        // Not List.copyOf: it rejects null elements, which validate() reports as a missing field instead.
+        this.reservations = reservations == null ? null : Collections.unmodifiableList(new ArrayList<>(reservations));
+    }
+
+    @Override
+    public void validate() {
+        ValidationException.require("reservations", reservations);
+        if (reservations.isEmpty() || reservations.size() > ReservationSlots.MAX_BATCH_SIZE) {
+            throw new ValidationException("reservations",
+                    "reservations must hold 1 to " + ReservationSlots.MAX_BATCH_SIZE + " items");
+        }
+        for (int i = 0; i < reservations.size(); i++) {
+            String prefix = "reservations[" + i + "]";
+            ValidationException.require(prefix, reservations.get(i));
+            try {
+                reservations.get(i).validate();
+            } catch (ValidationException e) {
+                throw new ValidationException(prefix + "." + e.getField(), prefix + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Outcome of one reservation of the batch.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Result {
+        private final int index;
+        private final String status;
+        private final String reservationId;
+
+        public Result(int index, String status, String reservationId) {
+            this.index = index;
+            this.status = status;
+            this.reservationId = reservationId;
+        }
+
+        @JsonProperty("index")
+        public int getIndex() {
+            return index;
+        }
+
+        @JsonProperty("status")
+        public String getStatus() {
+            return status;
+        }
+
+        @JsonProperty("reservationId")
+        public String getReservationId() {
+            return reservationId;
+        }
+    }
+
+    /**
+     * Response to {@code POST /reservations/batch}.
+     */
+    public static final class Response {
+        private final boolean reserved;
+        private final List<Result> results;
+
+        public Response(boolean reserved, List<Result> results) {
+            this.reserved = reserved;
+            this.results = results;
+        }
+
+        @JsonProperty("reserved")
+        public boolean isReserved() {
+            return reserved;
+        }
+
+        @JsonProperty("results")
+        public List<Result> getResults() {
+            return results;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.task12;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the reservations table page by page as a DynamoDB parallel scan. A call reads up to {@code limit}
+ * items spread over all segments, each segment scanned on its own thread, and returns them with a
+ * {@code nextToken} that holds every unfinished segment's position. A response therefore stays far below the
+ * Lambda payload limit and the API Gateway timeout however large the table grows, and a client exports the
+ * table by following {@code nextToken} to the end.
+ */
+public class ReservationExporter {
+
+    public static final int DEFAULT_SEGMENTS = 4;
+    public static final int MAX_SEGMENTS = 16;
+
+    // the exported fields only; date is a reserved word
+    private static final String PROJECTION = "id, tableNumber, clientName, phoneNumber, #date, slotTimeStart, slotTimeEnd";
+    // nextToken entry holding the segment count the positions belong to; the others are "<segment>": "<last id>"
+    private static final String SEGMENTS_KEY = "segments";
+
+    public static final class SegmentStats {
+        private final int segment;
+        private final long items;
+        private final int pages;
+        private final double consumedCapacity;
+        private final long elapsedNanos;
+
+        SegmentStats(int segment, long items, int pages, double consumedCapacity, long elapsedNanos) {
+            this.segment = segment;
+            this.items = items;
+            this.pages = pages;
+            this.consumedCapacity = consumedCapacity;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getSegment() {
+            return segment;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public double getConsumedCapacity() {
+            return consumedCapacity;
+        }
+
+        public double getItemsPerSecond() {
+            return elapsedNanos == 0 ? items : items * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("segment=%d items=%d pages=%d consumedCapacity=%.1f elapsedMs=%.1f itemsPerSecond=%.0f",
+                    segment, items, pages, consumedCapacity, elapsedNanos / 1e6, getItemsPerSecond());
+        }
+    }
+
+    public static final class Export {
+        private final String body;
+        private final List<SegmentStats> segments;
+        private final long elapsedNanos;
+
+        Export(String body, List<SegmentStats> segments, long elapsedNanos) {
+            this.body = body;
+            this.segments = segments;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public List<SegmentStats> getSegments() {
+            return segments;
+        }
+
+        public long getItems() {
+            return segments.stream().mapToLong(SegmentStats::getItems).sum();
+        }
+
+        public double getConsumedCapacity() {
+            return segments.stream().mapToDouble(SegmentStats::getConsumedCapacity).sum();
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getItemsPerSecond() {
+            return elapsedNanos == 0 ? getItems() : getItems() * 1e9 / elapsedNanos;
+        }
+    }
+
+    // what one call has read from a segment so far
+    private static final class Progress {
+        private long items;
+        private int pages;
+        private double consumedCapacity;
+        private long elapsedNanos;
+    }
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final PagedResponseWriter pagedResponseWriter;
+
+    public ReservationExporter(DynamoDbClient dynamoDbClient, String tableName, PagedResponseWriter pagedResponseWriter) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.pagedResponseWriter = pagedResponseWriter;
+    }
+
+    public static int parseSegments(Map<String, String> queryParameters) {
+        String value = queryParameters == null ? null : queryParameters.get("segments");
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_SEGMENTS;
+        }
+        try {
+            int segments = Integer.parseInt(value);
+            if (segments < 1 || segments > MAX_SEGMENTS) {
+                throw new IllegalArgumentException("segments must be between 1 and " + MAX_SEGMENTS);
+            }
+            return segments;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("segments must be an integer");
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} reservations from the {@code totalSegments} segments, starting after
+     * {@code nextToken}.
+     */
+    public Export export(int totalSegments, int limit, String nextToken) throws IOException {
+        long startedAt = System.nanoTime();
+        Progress[] progress = new Progress[totalSegments];
+        ExecutorService executor = totalSegments > 1 ? Executors.newFixedThreadPool(totalSegments) : null;
+        try {
+            String body = pagedResponseWriter.write("reservations", limit, nextToken,
+                    (positions, pageLimit) -> fetch(positions, pageLimit, totalSegments, progress, executor),
+                    ReservationExporter::writeItem);
+
+            List<SegmentStats> stats = new ArrayList<>(totalSegments);
+            for (int segment = 0; segment < totalSegments; segment++) {
+                Progress read = progress[segment];
+                if (read != null) {
+                    stats.add(new SegmentStats(segment, read.items, read.pages, read.consumedCapacity, read.elapsedNanos));
+                }
+            }
+            return new Export(body, stats, System.nanoTime() - startedAt);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * One round of the scan: shares {@code limit} between the unfinished segments and scans them concurrently.
+     * The returned "last evaluated key" is the new set of segment positions, {@code null} once all are done.
+     */
+    private PagedResponseWriter.Page fetch(Map<String, AttributeValue> positions, int limit, int totalSegments,
+                                           Progress[] progress, ExecutorService executor) {
+        Map<Integer, String> startIds = decodePositions(positions, totalSegments);
+        List<Integer> active = new ArrayList<>(startIds.keySet());
+        Map<Integer, Future<ScanResponse>> scans = new TreeMap<>();
+        for (int i = 0; i < active.size(); i++) {
+            int share = limit / active.size() + (i < limit % active.size() ? 1 : 0);
+            if (share == 0) {
+                continue;
+            }
+            int segment = active.get(i);
+            Callable<ScanResponse> scan = () -> scan(segment, totalSegments, startIds.get(segment), share, progress);
+            scans.put(segment, executor == null ? CompletableFuture.completedFuture(call(scan)) : executor.submit(scan));
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<Integer, String> nextIds = new TreeMap<>(startIds);
+        for (Map.Entry<Integer, Future<ScanResponse>> scan : scans.entrySet()) {
+            ScanResponse response = await(scan.getValue());
+            items.addAll(response.items());
+            if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                nextIds.put(scan.getKey(), response.lastEvaluatedKey().get("id").s());
+            } else {
+                nextIds.remove(scan.getKey());
+            }
+        }
+        return new PagedResponseWriter.Page(items, encodePositions(nextIds, totalSegments));
+    }
+
+    private ScanResponse scan(int segment, int totalSegments, String startId, int limit, Progress[] progress) {
+        long startedAt = System.nanoTime();
+        ScanResponse response = dynamoDbClient.scan(ScanRequest.builder()
+                .tableName(tableName)
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .exclusiveStartKey(startId.isEmpty() ? null : Map.of("id", AttributeValue.builder().s(startId).build()))
+                .limit(limit)
+                .filterExpression("NOT begins_with(id, :ledgerPrefix)")
+                .projectionExpression(PROJECTION)
+                .expressionAttributeNames(Map.of("#date", "date"))
+                .expressionAttributeValues(Map.of(":ledgerPrefix", AttributeValue.builder().s(ReservationSlots.LEDGER_ID_PREFIX).build()))
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build());
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        // each segment is only ever scanned by one thread at a time, and the caller joins before reading
+        Progress read = progress[segment];
+        if (read == null) {
+            read = new Progress();
+            progress[segment] = read;
+        }
+        read.items += response.items().size();
+        read.pages++;
+        read.elapsedNanos += elapsedNanos;
+        if (response.consumedCapacity() != null && response.consumedCapacity().capacityUnits() != null) {
+            read.consumedCapacity += response.consumedCapacity().capacityUnits();
+        }
+        return response;
+    }
+
+    private static Map<Integer, String> decodePositions(Map<String, AttributeValue> positions, int totalSegments) {
+        Map<Integer, String> startIds = new TreeMap<>();
+        if (positions == null) {
+            for (int segment = 0; segment < totalSegments; segment++) {
+                startIds.put(segment, "");
+            }
+            return startIds;
+        }
+        AttributeValue segments = positions.get(SEGMENTS_KEY);
+        if (segments == null || !String.valueOf(totalSegments).equals(segments.n())) {
+            throw new PagedResponseWriter.InvalidPageRequestException("nextToken belongs to an export with a different segments value");
+        }
+        for (Map.Entry<String, AttributeValue> position : positions.entrySet()) {
+            if (position.getKey().equals(SEGMENTS_KEY)) {
+                continue;
+            }
+            try {
+                int segment = Integer.parseInt(position.getKey());
+                if (segment < 0 || segment >= totalSegments || position.getValue().s() == null) {
+                    throw new PagedResponseWriter.InvalidPageRequestException("Invalid nextToken");
+                }
+                startIds.put(segment, position.getValue().s());
+            } catch (NumberFormatException e) {
+                throw new PagedResponseWriter.InvalidPageRequestException("Invalid nextToken");
+            }
+        }
+        if (startIds.isEmpty()) {
+            throw new PagedResponseWriter.InvalidPageRequestException("Invalid nextToken");
+        }
+        return startIds;
+    }
+
+    private static Map<String, AttributeValue> encodePositions(Map<Integer, String> startIds, int totalSegments) {
+        if (startIds.isEmpty()) {
+            return null;
+        }
+        Map<String, AttributeValue> positions = new HashMap<>();
+        positions.put(SEGMENTS_KEY, AttributeValue.builder().n(String.valueOf(totalSegments)).build());
+        for (Map.Entry<Integer, String> startId : startIds.entrySet()) {
+            positions.put(String.valueOf(startId.getKey()), AttributeValue.builder().s(startId.getValue()).build());
+        }
+        return positions;
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void writeItem(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", item.get("id").s());
+        PagedResponseWriter.writeNumberField(generator, "tableNumber", item.get("tableNumber"));
+        generator.writeStringField("clientName", item.get("clientName").s());
+        generator.writeStringField("phoneNumber", item.get("phoneNumber").s());
+        generator.writeStringField("date", item.get("date").s());
+        generator.writeStringField("slotTimeStart", item.get("slotTimeStart").s());
+        generator.writeStringField("slotTimeEnd", item.get("slotTimeEnd").s());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,427 @@
+package com.task12;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Books reservation slots without scanning the reservations table.
+ *
+ * Every (tableNumber, date) pair owns one ledger item in the reservations table, keyed by
+ * {@code slots#<tableNumber>#<date>}, that lists the slots already taken on that day. A booking reads
+ * the ledger with one consistent GetItem, checks the requested slot against it, and then writes the
+ * reservation together with the updated ledger in one transaction guarded by the ledger version, so two
+ * concurrent bookings for the same table and day can never both succeed. A booking that loses such a race
+ * (a failed version check or a transaction conflict) re-reads the ledger after a short jittered backoff.
+ *
+ * A day without a ledger may still hold reservations stored before ledgers existed; its ledger is seeded
+ * from them, found through the {@code tableNumber-date-index}, the first time the day is booked.
+ */
+public class ReservationSlots {
+
+    public static final String LEDGER_ID_PREFIX = "slots#";
+
+    /**
+     * One put per booking plus at most one ledger update per booking keeps a full batch at 50
+     * transaction actions, well inside the DynamoDB limit of 100.
+     */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    public static final String TABLE_DATE_INDEX = "tableNumber-date-index";
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    public enum Outcome {
+        RESERVED,
+        /** overlaps a reservation that is already stored */
+        SLOT_TAKEN,
+        /** overlaps an earlier booking of the same batch */
+        OVERLAPS_BATCH,
+        /** valid, but not stored because another booking of the batch failed */
+        NOT_BOOKED
+    }
+
+    /**
+     * The ledgers kept changing under a booking for {@link #MAX_ATTEMPTS} attempts.
+     */
+    public static class ContentionException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public ContentionException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class Booking {
+        private final String tableNumber;
+        private final String date;
+        private final String slotTimeStart;
+        private final String slotTimeEnd;
+        private final Map<String, AttributeValue> reservation;
+
+        public Booking(String tableNumber, String date, String slotTimeStart, String slotTimeEnd,
+                       Map<String, AttributeValue> reservation) {
+            this.tableNumber = tableNumber;
+            this.date = date;
+            this.slotTimeStart = slotTimeStart;
+            this.slotTimeEnd = slotTimeEnd;
+            this.reservation = reservation;
+        }
+
+        private String ledgerId() {
+            return ReservationSlots.ledgerId(tableNumber, date);
+        }
+
+        private String slot() {
+            return slotTimeStart + "|" + slotTimeEnd;
+        }
+    }
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public ReservationSlots(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    public static String ledgerId(String tableNumber, String date) {
+        return LEDGER_ID_PREFIX + tableNumber + "#" + date;
+    }
+
+    /**
+     * Stores {@code reservation} if the slot is free.
+     *
+     * @return {@code false} when the slot overlaps an existing reservation
+     * @throws ContentionException when the ledger kept changing under us for {@link #MAX_ATTEMPTS} attempts
+     */
+    public boolean reserve(String tableNumber, String date, String slotTimeStart, String slotTimeEnd,
+                           Map<String, AttributeValue> reservation) {
+        Map<String, AttributeValue> ledgerKey = Map.of("id", AttributeValue.builder().s(ledgerId(tableNumber, date)).build());
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                backoff(attempt);
+            }
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(ledgerKey)
+                    .consistentRead(true)
+                    .build());
+            Map<String, AttributeValue> ledger = response.hasItem() ? response.item() : seedLedger(tableNumber, date);
+            if (ledger == null) {
+                // Created by another booking while we were seeding it; read it again.
+                continue;
+            }
+
+            if (overlapsAny(ledger.get("slots"), slotTimeStart, slotTimeEnd)) {
+                return false;
+            }
+
+            List<TransactWriteItem> writes = new ArrayList<>(2);
+            writes.add(TransactWriteItem.builder()
+                    .put(Put.builder()
+                            .tableName(tableName)
+                            .item(reservation)
+                            .conditionExpression("attribute_not_exists(id)")
+                            .build())
+                    .build());
+            writes.add(TransactWriteItem.builder()
+                    .update(ledgerUpdate(ledgerKey, ledger.get("version"), List.of(slotTimeStart + "|" + slotTimeEnd)))
+                    .build());
+
+            try {
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(writes).build());
+                return true;
+            } catch (TransactionCanceledException e) {
+                if (!isLostRace(e)) {
+                    throw e;
+                }
+                // Somebody booked the same table and day in between; re-read the ledger and check again.
+            }
+        }
+        throw new ContentionException("Too many concurrent bookings for table " + tableNumber + " on " + date);
+    }
+
+    /**
+     * Stores all bookings in one transaction, or none of them. Ledgers of every (tableNumber, date)
+     * in the batch are read with one consistent BatchGetItem, and each ledger gets a single update
+     * that appends all of its new slots.
+     *
+     * @return one outcome per booking, in order: all {@link Outcome#RESERVED}, or the reason of every
+     * booking that conflicts and {@link Outcome#NOT_BOOKED} for the rest
+     * @throws ContentionException when the ledgers kept changing under us for {@link #MAX_ATTEMPTS} attempts
+     */
+    public List<Outcome> reserveAll(List<Booking> bookings) {
+        if (bookings.isEmpty() || bookings.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch holds 1 to " + MAX_BATCH_SIZE + " bookings");
+        }
+
+        Map<String, List<Booking>> byLedger = new LinkedHashMap<>();
+        for (Booking booking : bookings) {
+            byLedger.computeIfAbsent(booking.ledgerId(), id -> new ArrayList<>()).add(booking);
+        }
+
+        Outcome[] outcomes = new Outcome[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            for (int j = 0; j < i; j++) {
+                Booking earlier = bookings.get(j);
+                if (earlier.ledgerId().equals(booking.ledgerId())
+                        && overlaps(earlier.slotTimeStart, earlier.slotTimeEnd, booking.slotTimeStart, booking.slotTimeEnd)) {
+                    outcomes[i] = Outcome.OVERLAPS_BATCH;
+                    break;
+                }
+            }
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                backoff(attempt);
+            }
+            Map<String, Map<String, AttributeValue>> ledgers = readLedgers(byLedger.keySet());
+            if (!seedMissingLedgers(byLedger, ledgers)) {
+                continue;
+            }
+
+            Outcome[] attemptOutcomes = outcomes.clone();
+            boolean conflict = false;
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                Map<String, AttributeValue> ledger = ledgers.get(booking.ledgerId());
+                if (overlapsAny(ledger.get("slots"), booking.slotTimeStart, booking.slotTimeEnd)) {
+                    attemptOutcomes[i] = Outcome.SLOT_TAKEN;
+                }
+                conflict |= attemptOutcomes[i] != null;
+            }
+            if (conflict) {
+                for (int i = 0; i < attemptOutcomes.length; i++) {
+                    if (attemptOutcomes[i] == null) {
+                        attemptOutcomes[i] = Outcome.NOT_BOOKED;
+                    }
+                }
+                return Arrays.asList(attemptOutcomes);
+            }
+
+            List<TransactWriteItem> writes = new ArrayList<>(bookings.size() + byLedger.size());
+            for (Booking booking : bookings) {
+                writes.add(TransactWriteItem.builder()
+                        .put(Put.builder()
+                                .tableName(tableName)
+                                .item(booking.reservation)
+                                .conditionExpression("attribute_not_exists(id)")
+                                .build())
+                        .build());
+            }
+            for (Map.Entry<String, List<Booking>> group : byLedger.entrySet()) {
+                Map<String, AttributeValue> ledger = ledgers.get(group.getKey());
+                List<String> slots = new ArrayList<>(group.getValue().size());
+                for (Booking booking : group.getValue()) {
+                    slots.add(booking.slot());
+                }
+                writes.add(TransactWriteItem.builder()
+                        .update(ledgerUpdate(Map.of("id", AttributeValue.builder().s(group.getKey()).build()),
+                                ledger.get("version"), slots))
+                        .build());
+            }
+
+            try {
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(writes).build());
+                Arrays.fill(attemptOutcomes, Outcome.RESERVED);
+                return Arrays.asList(attemptOutcomes);
+            } catch (TransactionCanceledException e) {
+                if (!isLostRace(e)) {
+                    throw e;
+                }
+                // One of the ledgers changed in between; re-read them all and check again.
+            }
+        }
+        throw new ContentionException("Too many concurrent bookings for the tables in this batch");
+    }
+
+    /**
+     * Puts a ledger for every (tableNumber, date) of the batch that has none yet into {@code ledgers}, seeded
+     * from the reservations already stored for it.
+     *
+     * @return {@code false} when another booking created one of those ledgers in the meantime
+     */
+    private boolean seedMissingLedgers(Map<String, List<Booking>> byLedger,
+                                       Map<String, Map<String, AttributeValue>> ledgers) {
+        for (Map.Entry<String, List<Booking>> group : byLedger.entrySet()) {
+            if (!ledgers.containsKey(group.getKey())) {
+                Booking booking = group.getValue().get(0);
+                Map<String, AttributeValue> ledger = seedLedger(booking.tableNumber, booking.date);
+                if (ledger == null) {
+                    return false;
+                }
+                ledgers.put(group.getKey(), ledger);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The ledger for a day that has none: empty when no reservation is stored for it, otherwise a new ledger
+     * item holding the slots of the reservations found through {@link #TABLE_DATE_INDEX}, which is stored
+     * before it is returned.
+     *
+     * @return {@code null} when another booking created the ledger while it was being seeded
+     */
+    private Map<String, AttributeValue> seedLedger(String tableNumber, String date) {
+        List<AttributeValue> slots = new ArrayList<>();
+        Map<String, AttributeValue> values = Map.of(
+                ":tableNumber", AttributeValue.builder().n(tableNumber).build(),
+                ":date", AttributeValue.builder().s(date).build());
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryResponse response = dynamoDbClient.query(QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(TABLE_DATE_INDEX)
+                    .keyConditionExpression("tableNumber = :tableNumber AND #date = :date")
+                    .projectionExpression("slotTimeStart, slotTimeEnd")
+                    .expressionAttributeNames(Map.of("#date", "date"))
+                    .expressionAttributeValues(values)
+                    .exclusiveStartKey(startKey)
+                    .build());
+            for (Map<String, AttributeValue> reservation : response.items()) {
+                slots.add(AttributeValue.builder()
+                        .s(reservation.get("slotTimeStart").s() + "|" + reservation.get("slotTimeEnd").s())
+                        .build());
+            }
+            startKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        if (slots.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, AttributeValue> ledger = new HashMap<>();
+        ledger.put("id", AttributeValue.builder().s(ledgerId(tableNumber, date)).build());
+        ledger.put("slots", AttributeValue.builder().l(slots).build());
+        ledger.put("version", AttributeValue.builder().n("0").build());
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(ledger)
+                    .conditionExpression("attribute_not_exists(id)")
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            return null;
+        }
+        return ledger;
+    }
+
+    private Map<String, Map<String, AttributeValue>> readLedgers(Iterable<String> ledgerIds) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        for (String ledgerId : ledgerIds) {
+            keys.add(Map.of("id", AttributeValue.builder().s(ledgerId).build()));
+        }
+
+        Map<String, Map<String, AttributeValue>> ledgers = new HashMap<>();
+        Map<String, KeysAndAttributes> request = Map.of(tableName, KeysAndAttributes.builder()
+                .keys(keys)
+                .consistentRead(true)
+                .build());
+        while (!request.isEmpty()) {
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(request)
+                    .build());
+            for (Map<String, AttributeValue> ledger : response.responses().getOrDefault(tableName, List.of())) {
+                ledgers.put(ledger.get("id").s(), ledger);
+            }
+            request = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.of();
+        }
+        return ledgers;
+    }
+
+    private Update ledgerUpdate(Map<String, AttributeValue> ledgerKey, AttributeValue version, List<String> slots) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#slots", "slots");
+        names.put("#version", "version");
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<AttributeValue> newSlots = new ArrayList<>(slots.size());
+        for (String slot : slots) {
+            newSlots.add(AttributeValue.builder().s(slot).build());
+        }
+        values.put(":slot", AttributeValue.builder().l(newSlots).build());
+        values.put(":empty", AttributeValue.builder().l(List.of()).build());
+
+        long currentVersion = version != null ? Long.parseLong(version.n()) : 0;
+        values.put(":next", AttributeValue.builder().n(String.valueOf(currentVersion + 1)).build());
+
+        String condition;
+        if (version != null) {
+            values.put(":expected", version);
+            condition = "#version = :expected";
+        } else {
+            condition = "attribute_not_exists(id)";
+        }
+
+        return Update.builder()
+                .tableName(tableName)
+                .key(ledgerKey)
+                .updateExpression("SET #slots = list_append(if_not_exists(#slots, :empty), :slot), #version = :next")
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private static boolean overlapsAny(AttributeValue slots, String slotTimeStart, String slotTimeEnd) {
+        if (slots == null || !slots.hasL()) {
+            return false;
+        }
+        for (AttributeValue slot : slots.l()) {
+            String value = slot.s();
+            int separator = value.indexOf('|');
+            String start = value.substring(0, separator);
+            String end = value.substring(separator + 1);
+            if (overlaps(start, end, slotTimeStart, slotTimeEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(String start, String end, String otherStart, String otherEnd) {
+        return start.compareTo(otherEnd) < 0 && end.compareTo(otherStart) > 0;
+    }
+
+    /**
+     * Whether the transaction was cancelled by a concurrent booking: a ledger version check failed, or
+     * another transaction was writing the same ledger at the same time.
+     */
+    private static boolean isLostRace(TransactionCanceledException e) {
+        if (!e.hasCancellationReasons()) {
+            return false;
+        }
+        for (CancellationReason reason : e.cancellationReasons()) {
+            if ("ConditionalCheckFailed".equals(reason.code()) || "TransactionConflict".equals(reason.code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exponential backoff with full jitter, so bookings that collided don't collide again on the retry.
+     */
+    private static void backoff(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a booking", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.task12;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Middleware that compresses response bodies of at least {@code minBytes} with gzip or deflate, whichever
+ * the client's {@code Accept-Encoding} prefers. Compressed bodies go back base64-encoded with
+ * {@code isBase64Encoded}, which API Gateway decodes before sending them to the client. A strong {@code ETag} on
+ * a compressed response is made weak, as the compressed bytes differ from the ones it was computed over.
+ * A {@code minBytes} of zero or less turns compression off, for APIs without binary media types.
+ *
+ * <p>The {@link Deflater}, checksum and output buffer are kept per thread and reused across requests
+ * instead of going through a new {@code GZIPOutputStream} (and its native zlib stream) for every response.
+ */
+public class ResponseCompression implements Middleware {
+
+    public static final int DEFAULT_MIN_BYTES = 1024;
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    // level 1: on /tables pages it costs half the CPU time of the default level for ~30% larger output
+    private static final int LEVEL = Deflater.BEST_SPEED;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final class Buffers {
+        private final Deflater gzipDeflater = new Deflater(LEVEL, true);
+        private final Deflater deflateDeflater = new Deflater(LEVEL, false);
+        private final CRC32 crc = new CRC32();
+        private byte[] output = new byte[8 * 1024];
+    }
+
+    private final int minBytes;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public ResponseCompression(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handle(ApiRequest request, Chain next) throws Exception {
+        APIGatewayProxyResponseEvent response = next.proceed(request);
+        if (minBytes <= 0) {
+            return response;
+        }
+        String encoding = negotiate(request.getHeader("Accept-Encoding"));
+        if (encoding == null || response.getBody() == null || Boolean.TRUE.equals(response.getIsBase64Encoded())
+                || response.getHeaders() != null && response.getHeaders().containsKey("Content-Encoding")) {
+            return response;
+        }
+        // a multi-byte character can only make the bytes longer, so a short string is always below the threshold
+        if (response.getBody().length() < minBytes / 3) {
+            return response;
+        }
+        byte[] body = response.getBody().getBytes(StandardCharsets.UTF_8);
+        if (body.length < minBytes) {
+            return response;
+        }
+        byte[] compressed = compress(body, encoding);
+        if (compressed.length >= body.length) {
+            return response;
+        }
+
+        Map<String, String> headers = response.getHeaders() == null ? new HashMap<>() : new HashMap<>(response.getHeaders());
+        headers.put("Content-Encoding", encoding);
+        headers.put("Vary", "Accept-Encoding");
+        String etag = headers.get("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            // a strong tag promises identical bytes; If-None-Match compares weakly, so revalidation still hits
+            headers.put("ETag", "W/" + etag);
+        }
+        return response
+                .withHeaders(headers)
+                .withBody(Base64.getEncoder().encodeToString(compressed))
+                .withIsBase64Encoded(true);
+    }
+
+    /**
+     * Preferred supported coding of an {@code Accept-Encoding} header: the highest q-value wins, gzip on a
+     * tie; {@code null} when neither gzip nor deflate is acceptable. {@code br} isn't offered because the
+     * JDK has no Brotli encoder.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        double wildcard = -1;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = q;
+                gzipListed = true;
+            } else if (coding.equals(DEFLATE)) {
+                deflate = q;
+                deflateListed = true;
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        if (!gzipListed && wildcard >= 0) {
+            gzip = wildcard;
+        }
+        if (!deflateListed && wildcard >= 0) {
+            deflate = wildcard;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    byte[] compress(byte[] body, String encoding) {
+        Buffers buffers = this.buffers.get();
+        boolean gzip = GZIP.equals(encoding);
+        Deflater deflater = gzip ? buffers.gzipDeflater : buffers.deflateDeflater;
+        deflater.reset();
+        deflater.setInput(body);
+        deflater.finish();
+
+        int length = gzip ? GZIP_HEADER.length : 0;
+        if (gzip) {
+            System.arraycopy(GZIP_HEADER, 0, buffers.output, 0, GZIP_HEADER.length);
+        }
+        while (!deflater.finished()) {
+            if (length == buffers.output.length) {
+                buffers.output = Arrays.copyOf(buffers.output, buffers.output.length * 2);
+            }
+            length += deflater.deflate(buffers.output, length, buffers.output.length - length);
+        }
+        if (gzip) {
+            buffers.crc.reset();
+            buffers.crc.update(body, 0, body.length);
+            if (buffers.output.length < length + 8) {
+                buffers.output = Arrays.copyOf(buffers.output, length + 8);
+            }
+            length = writeIntLittleEndian(buffers.output, length, (int) buffers.crc.getValue());
+            length = writeIntLittleEndian(buffers.output, length, body.length);
+        }
+        return Arrays.copyOf(buffers.output, length);
+    }
+
+    private static int writeIntLittleEndian(byte[] output, int offset, int value) {
+        output[offset] = (byte) value;
+        output[offset + 1] = (byte) (value >> 8);
+        output[offset + 2] = (byte) (value >> 16);
+        output[offset + 3] = (byte) (value >> 24);
+        return offset + 4;
+    }
+}
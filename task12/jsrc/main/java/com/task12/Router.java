@@ -0,0 +1,167 @@
+package com.task12;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Route table compiled into a trie of path segments. Literal segments are matched before
+ * {@code {param}} segments, and parameter values are collected into the request.
+ */
+public class Router {
+
+    @FunctionalInterface
+    public interface RouteHandler {
+        APIGatewayProxyResponseEvent handle(ApiHandler handler, ApiRequest request) throws Exception;
+    }
+
+    public static final class Route {
+        private final String name;
+        private final RouteHandler handler;
+        private final boolean authenticated;
+        private final Class<? extends RequestBody> bodyType;
+        private final String requiredGroup;
+
+        private Route(String name, RouteHandler handler, boolean authenticated, Class<? extends RequestBody> bodyType,
+                      String requiredGroup) {
+            this.name = name;
+            this.handler = handler;
+            this.authenticated = authenticated;
+            this.bodyType = bodyType;
+            this.requiredGroup = requiredGroup;
+        }
+
+        /**
+         * Method and pattern, e.g. {@code GET /tables/{tableId}}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public RouteHandler getHandler() {
+            return handler;
+        }
+
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        /**
+         * Cognito group the caller must belong to, or {@code null} when any authenticated caller may use the route.
+         */
+        public String getRequiredGroup() {
+            return requiredGroup;
+        }
+
+        public boolean hasBody() {
+            return bodyType != null;
+        }
+
+        public Class<? extends RequestBody> getBodyType() {
+            return bodyType;
+        }
+    }
+
+    public static final class Match {
+        private final Route route;
+        private final Map<String, String> pathParameters;
+
+        private Match(Route route, Map<String, String> pathParameters) {
+            this.route = route;
+            this.pathParameters = pathParameters;
+        }
+
+        public Route getRoute() {
+            return route;
+        }
+
+        public Map<String, String> getPathParameters() {
+            return pathParameters;
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node parameter;
+        private String parameterName;
+        private final Map<String, Route> routes = new HashMap<>();
+    }
+
+    private final Node root = new Node();
+
+    public Router get(String pattern, RouteHandler handler) {
+        return add("GET", pattern, handler, true, null, null);
+    }
+
+    /**
+     * A GET route open only to members of {@code group}.
+     */
+    public Router get(String pattern, String group, RouteHandler handler) {
+        return add("GET", pattern, handler, true, null, group);
+    }
+
+    public Router post(String pattern, Class<? extends RequestBody> bodyType, RouteHandler handler) {
+        return add("POST", pattern, handler, true, bodyType, null);
+    }
+
+    public Router publicPost(String pattern, Class<? extends RequestBody> bodyType, RouteHandler handler) {
+        return add("POST", pattern, handler, false, bodyType, null);
+    }
+
+    private Router add(String method, String pattern, RouteHandler handler, boolean authenticated,
+                       Class<? extends RequestBody> bodyType, String requiredGroup) {
+        Node node = root;
+        for (String segment : pattern.substring(1).split("/")) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.parameter == null) {
+                    node.parameter = new Node();
+                    node.parameterName = segment.substring(1, segment.length() - 1);
+                }
+                node = node.parameter;
+            } else {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.routes.put(method, new Route(method + " " + pattern, handler, authenticated, bodyType, requiredGroup));
+        return this;
+    }
+
+    /**
+     * @throws ApiException 400 for an unknown path or a method the path does not support
+     */
+    public Match match(String method, String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new ApiException(400, "Invalid path: " + path);
+        }
+        Node node = root;
+        Map<String, String> parameters = null;
+        int start = 1;
+        while (node != null && start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            Node next = node.literals.get(segment);
+            if (next == null && node.parameter != null && !segment.isEmpty()) {
+                if (parameters == null) {
+                    parameters = new HashMap<>(4);
+                }
+                parameters.put(node.parameterName, segment);
+                next = node.parameter;
+            }
+            node = next;
+            start = end + 1;
+        }
+        if (node == null || node.routes.isEmpty()) {
+            throw new ApiException(400, "Invalid path: " + path);
+        }
+        Route route = node.routes.get(method == null ? null : method.toUpperCase());
+        if (route == null) {
+            throw new ApiException(400, "Method Not Allowed");
+        }
+        return new Match(route, parameters == null ? Collections.emptyMap() : parameters);
+    }
+}
@@ -0,0 +1,105 @@
+package com.task12;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A restaurant table, as posted to and returned from {@code /tables}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Table implements RequestBody {
+
+    private final Integer id;
+    private final Integer number;
+    private final Integer places;
+    private final Boolean vip;
+    private final Integer minOrder;
+
+    @JsonCreator
+    public Table(@JsonProperty("id") Integer id,
+                 @JsonProperty("number") Integer number,
+                 @JsonProperty("places") Integer places,
+                 @JsonProperty("isVip") Boolean vip,
+                 @JsonProperty("minOrder") Integer minOrder) {
+        this.id = id;
+        this.number = number;
+        this.places = places;
+        this.vip = vip;
+        this.minOrder = minOrder;
+    }
+
+    public static Table fromItem(Map<String, AttributeValue> item) {
+        return new Table(
+                Integer.parseInt(item.get("id").s()),
+                Integer.parseInt(item.get("number").n()),
+                Integer.parseInt(item.get("places").n()),
+                item.get("isVip").bool(),
+                item.containsKey("minOrder") ? Integer.parseInt(item.get("minOrder").n()) : 0);
+    }
+
+    public Map<String, AttributeValue> toItem() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", AttributeValue.builder().s(String.valueOf(id)).build());
+        item.put("number", AttributeValue.builder().n(String.valueOf(number)).build());
+        item.put("places", AttributeValue.builder().n(String.valueOf(places)).build());
+        item.put("isVip", AttributeValue.builder().bool(vip).build());
+        if (minOrder != null) {
+            item.put("minOrder", AttributeValue.builder().n(String.valueOf(minOrder)).build());
+        }
+        return item;
+    }
+
+    @Override
+    public void validate() {
+        ValidationException.require("id", id);
+        ValidationException.require("number", number);
+        ValidationException.require("places", places);
+        ValidationException.require("isVip", vip);
+    }
+
+    @JsonProperty("id")
+    public Integer getId() {
+        return id;
+    }
+
+    @JsonProperty("number")
+    public Integer getNumber() {
+        return number;
+    }
+
+    @JsonProperty("places")
+    public Integer getPlaces() {
+        return places;
+    }
+
+    @JsonProperty("isVip")
+    public Boolean isVip() {
+        return vip;
+    }
+
+    @JsonProperty("minOrder")
+    public Integer getMinOrder() {
+        return minOrder;
+    }
+
+    /**
+     * Response to {@code POST /tables}.
+     */
+    public static final class Created {
+        private final int id;
+
+        public Created(int id) {
+            this.id = id;
+        }
+
+        @JsonProperty("id")
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.task12;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifies Cognito access tokens locally: RS256 signature against the pool JWKS, expiry,
+ * issuer, token_use and client_id. Tokens that already passed are remembered until they
+ * expire so repeated calls with the same token skip the signature check.
+ */
+public class TokenVerifier {
+
+    public static class InvalidTokenException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidTokenException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int VERIFIED_CACHE_SIZE = 1024;
+
+    private final JwksCache jwksCache;
+    private final String issuer;
+    private final String clientId;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Map<String, Verified> verifiedTokens = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+            return size() > VERIFIED_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Who a verified token was issued to: its subject ({@code sub} claim) and Cognito groups.
+     */
+    public static final class Identity {
+        private final String subject;
+        private final Set<String> groups;
+
+        private Identity(String subject, Set<String> groups) {
+            this.subject = subject;
+            this.groups = groups;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public boolean isMemberOf(String group) {
+            return groups.contains(group);
+        }
+    }
+
+    private static final class Verified {
+        private final long expiry;
+        private final Identity identity;
+
+        private Verified(long expiry, Identity identity) {
+            this.expiry = expiry;
+            this.identity = identity;
+        }
+    }
+
+    public TokenVerifier(JwksCache jwksCache, String issuer, String clientId, ObjectMapper objectMapper, Clock clock) {
+        this.jwksCache = jwksCache;
+        this.issuer = issuer;
+        this.clientId = clientId;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    public static TokenVerifier forUserPool(String region, String userPoolId, String clientId, ObjectMapper objectMapper) {
+        return forUserPool(region, userPoolId, clientId, JwksCache.JwksSource.forUserPool(region, userPoolId), objectMapper);
+    }
+
+    public static TokenVerifier forUserPool(String region, String userPoolId, String clientId,
+                                            JwksCache.JwksSource jwksSource, ObjectMapper objectMapper) {
+        return new TokenVerifier(new JwksCache(jwksSource, objectMapper), issuer(region, userPoolId), clientId,
+                objectMapper, Clock.systemUTC());
+    }
+
+    public static String issuer(String region, String userPoolId) {
+        return "https://cognito-idp." + region + ".amazonaws.com/" + userPoolId;
+    }
+
+    /**
+     * Loads the pool's JWKS and the RSA signature provider ahead of the first token.
+     */
+    public void warmUp() throws IOException, GeneralSecurityException {
+        jwksCache.getKey("");
+        Signature.getInstance("SHA256withRSA");
+    }
+
+    /**
+     * Checks the token and returns the user it was issued to.
+     */
+    public Identity verify(String token) throws InvalidTokenException {
+        long nowSeconds = clock.millis() / 1000;
+        Verified cached;
+        synchronized (verifiedTokens) {
+            cached = verifiedTokens.get(token);
+        }
+        if (cached != null) {
+            if (nowSeconds < cached.expiry) {
+                return cached.identity;
+            }
+            synchronized (verifiedTokens) {
+                verifiedTokens.remove(token);
+            }
+            throw new InvalidTokenException("Token expired");
+        }
+
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new InvalidTokenException("Malformed token");
+        }
+
+        JsonNode header = decodeJson(parts[0]);
+        JsonNode claims = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.path("alg").asText())) {
+            throw new InvalidTokenException("Unsupported algorithm: " + header.path("alg").asText());
+        }
+        verifySignature(header.path("kid").asText(), parts);
+
+        long expiry = claims.path("exp").asLong(0);
+        if (nowSeconds >= expiry) {
+            throw new InvalidTokenException("Token expired");
+        }
+        if (!issuer.equals(claims.path("iss").asText())) {
+            throw new InvalidTokenException("Unexpected issuer");
+        }
+        if (!"access".equals(claims.path("token_use").asText())) {
+            throw new InvalidTokenException("Not an access token");
+        }
+        if (!clientId.equals(claims.path("client_id").asText())) {
+            throw new InvalidTokenException("Token was issued for another client");
+        }
+
+        String subject = claims.path("sub").asText();
+        if (subject.isEmpty()) {
+            throw new InvalidTokenException("Token has no subject");
+        }
+
+        Set<String> groups = new HashSet<>();
+        for (JsonNode group : claims.path("cognito:groups")) {
+            groups.add(group.asText());
+        }
+        Identity identity = new Identity(subject, Set.copyOf(groups));
+
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(token, new Verified(expiry, identity));
+        }
+        return identity;
+    }
+
+    private void verifySignature(String kid, String[] parts) throws InvalidTokenException {
+        try {
+            PublicKey key = jwksCache.getKey(kid);
+            if (key == null) {
+                throw new InvalidTokenException("Unknown signing key: " + kid);
+            }
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new InvalidTokenException("Invalid signature");
+            }
+        } catch (IOException e) {
+            throw new InvalidTokenException("Unable to load signing keys: " + e.getMessage());
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Invalid signature");
+        }
+    }
+
+    private JsonNode decodeJson(String part) throws InvalidTokenException {
+        try {
+            return objectMapper.readTree(Base64.getUrlDecoder().decode(part));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+    }
+}